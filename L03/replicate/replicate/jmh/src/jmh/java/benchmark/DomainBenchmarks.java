@@ -0,0 +1,292 @@
+package benchmark;
+import domain.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the hot paths of the domain: building a lattice, filling it with random cells on one or more threads,
+ * the tic-tac at several sizes and densities, across a sticky wall and with every boundary, the count of active
+ * neighbors and the decide and change of every kind of Thing.
+ * Every benchmark reports the operations per second, and the gc profiler the bytes allocated per operation,
+ * so that regressions in speed or allocation show up when two runs are compared.
+ * <br>
+ * Usage: {@code java -jar jmh/build/libs/jmh-2024-jmh.jar DomainBenchmarks.ticTac -p storage=objects,counting -prof gc}
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainBenchmarks {
+
+    /**
+     * The size and storage of a lattice to build.
+     */
+    @State(Scope.Thread)
+    public static class Construction {
+        @Param({"objects", "packed"})
+        public String storage; //The storage of the lattice
+
+        @Param({"50", "200", "1000", "2048"})
+        public int size; //The rows and columns of the lattice
+    }
+
+    /**
+     * A lattice filled again and again, on one or more threads.
+     */
+    @State(Scope.Thread)
+    public static class Filling {
+        @Param({"objects", "packed"})
+        public String storage; //The storage of the lattice
+
+        @Param({"1000", "2048"})
+        public int size; //The rows and columns of the lattice
+
+        @Param({"1", "4"})
+        public int threads; //The threads filling the lattice
+
+        private AManufacturing aManufacturing; //The lattice being filled
+
+        /**
+         * Builds the lattice.
+         */
+        @Setup(Level.Trial)
+        public void build() {
+            aManufacturing = new AManufacturing(size, size, storageOf(storage));
+            aManufacturing.setParallelism(threads);
+        }
+
+        /**
+         * Ends the threads of the lattice.
+         */
+        @TearDown(Level.Trial)
+        public void release() {
+            aManufacturing.setParallelism(1);
+        }
+    }
+
+    /**
+     * A square lattice of original cells, each active with a given probability. The {@code counting} storage is
+     * an object lattice that keeps the counts of active neighbours.
+     */
+    @State(Scope.Thread)
+    public static class RandomLattice {
+        @Param({"objects", "packed", "counting"})
+        public String storage; //The storage of the lattice
+
+        @Param({"50", "200", "1000", "2048"})
+        public int size; //The rows and columns of the lattice
+
+        @Param({"0.0", "0.1", "0.5"})
+        public double density; //The probability of every cell being active
+
+        private AManufacturing aManufacturing; //The lattice being advanced
+
+        /**
+         * Builds the lattice.
+         */
+        @Setup(Level.Trial)
+        public void build() {
+            aManufacturing = randomLattice(size, storage, density);
+        }
+    }
+
+    /**
+     * A lattice with its initial pattern and a sticky wall across its middle row, which keeps the stuck cells
+     * and the wall checks on the measured path.
+     */
+    @State(Scope.Thread)
+    public static class WalledLattice {
+        @Param({"objects", "packed"})
+        public String storage; //The storage of the lattice
+
+        @Param({"50", "200", "1000"})
+        public int size; //The rows and columns of the lattice
+
+        private AManufacturing aManufacturing; //The lattice being advanced
+
+        /**
+         * Builds the lattice.
+         */
+        @Setup(Level.Trial)
+        public void build() {
+            aManufacturing = new AManufacturing(size, size, storageOf(storage));
+            new StickyWall(aManufacturing, size / 2);
+        }
+    }
+
+    /**
+     * A random lattice of 1000x1000 original cells, half of them active, with one of the boundaries.
+     */
+    @State(Scope.Thread)
+    public static class EdgedLattice {
+        @Param({"objects", "packed"})
+        public String storage; //The storage of the lattice
+
+        @Param({"bounded", "torus", "reflecting"})
+        public String boundary; //The edges of the lattice
+
+        private AManufacturing aManufacturing; //The lattice being advanced
+
+        /**
+         * Builds the lattice.
+         */
+        @Setup(Level.Trial)
+        public void build() {
+            aManufacturing = randomLattice(1000, storage, 0.5);
+            aManufacturing.setBoundary(boundary.equals("torus") ? AManufacturing.TORUS
+                : boundary.equals("reflecting") ? AManufacturing.REFLECTING : AManufacturing.BOUNDED);
+        }
+    }
+
+    /**
+     * A random lattice of 200x200 original cells whose neighbours are counted at scattered positions.
+     */
+    @State(Scope.Thread)
+    public static class Neighborhood {
+        @Param({"objects", "packed"})
+        public String storage; //The storage of the lattice
+
+        private AManufacturing aManufacturing; //The lattice whose neighbours are counted
+        private int position; //The last position counted
+
+        /**
+         * Builds the lattice.
+         */
+        @Setup(Level.Trial)
+        public void build() {
+            aManufacturing = randomLattice(200, storage, 0.5);
+        }
+    }
+
+    /**
+     * A Thing of one kind alone in a small lattice. The sticky wall comes with a stuck cell next to it.
+     */
+    @State(Scope.Thread)
+    public static class Things {
+        @Param({"OriginalCell", "ReflectiveCell", "TouristCell", "Poison", "StickyWall"})
+        public String kind; //The kind of Thing
+
+        private Thing[] things; //The Things that decide and change
+
+        /**
+         * Places the Thing.
+         */
+        @Setup(Level.Trial)
+        public void build() {
+            AManufacturing aManufacturing = new AManufacturing(20, 20);
+            aManufacturing.setSeed(20);
+            switch (kind) {
+                case "ReflectiveCell":
+                    aManufacturing.setThing(10, 10, null);
+                    things = new Thing[] {new ReflectiveCell(aManufacturing, 10, 10, true)};
+                    break;
+                case "TouristCell":
+                    aManufacturing.setThing(2, 2, null);
+                    things = new Thing[] {new TouristCell(aManufacturing, 2, 2, true)};
+                    break;
+                case "Poison":
+                    things = new Thing[] {new Poison()};
+                    break;
+                case "StickyWall":
+                    things = new Thing[] {new StickyWall(aManufacturing, 10), aManufacturing.getThing(11, 10)};
+                    break;
+                default:
+                    things = new Thing[] {aManufacturing.getThing(10, 10)};
+            }
+        }
+    }
+
+    /**
+     * Builds a lattice with its initial pattern.
+     */
+    @Benchmark
+    public AManufacturing construct(Construction construction) {
+        return new AManufacturing(construction.size, construction.size, storageOf(construction.storage));
+    }
+
+    /**
+     * Fills a whole lattice with original cells, half of them active.
+     */
+    @Benchmark
+    public void fill(Filling filling) {
+        filling.aManufacturing.fill(0, 0, filling.size - 1, filling.size - 1, 0.5);
+    }
+
+    /**
+     * Performs one tic-tac of a random lattice.
+     */
+    @Benchmark
+    public void ticTac(RandomLattice lattice) {
+        lattice.aManufacturing.ticTac();
+    }
+
+    /**
+     * Performs one tic-tac of a lattice crossed by a sticky wall.
+     */
+    @Benchmark
+    public void ticTacWall(WalledLattice lattice) {
+        lattice.aManufacturing.ticTac();
+    }
+
+    /**
+     * Performs one tic-tac of a random lattice with one of the boundaries.
+     */
+    @Benchmark
+    public void ticTacBoundary(EdgedLattice lattice) {
+        lattice.aManufacturing.ticTac();
+    }
+
+    /**
+     * Counts the active neighbours of the next of a sequence of scattered positions.
+     */
+    @Benchmark
+    public int neighborsActive(Neighborhood neighborhood) {
+        int p = neighborhood.position = (neighborhood.position + 7919) % (200 * 200);
+        return neighborhood.aManufacturing.neighborsActive(p / 200, p % 200);
+    }
+
+    /**
+     * Lets the Thing decide and change.
+     */
+    @Benchmark
+    public void thing(Things things) {
+        for (Thing thing : things.things) {
+            thing.decide();
+            thing.change();
+        }
+    }
+
+    /**
+     * Returns the storage constant of a storage name; {@code counting} is an object lattice.
+     */
+    private static int storageOf(String storage) {
+        return (storage.equals("packed") ? AManufacturing.PACKED : AManufacturing.OBJECTS);
+    }
+
+    /**
+     * Creates a square lattice of original cells, each active with the given probability.
+     * @param size The number of rows and columns.
+     * @param storage The name of the storage of the lattice.
+     * @param density The probability of every cell being active.
+     * @return The lattice.
+     */
+    private static AManufacturing randomLattice(int size, String storage, double density) {
+        AManufacturing aManufacturing = new AManufacturing(size, size, storageOf(storage));
+        Random random = new Random(size);
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                ((OriginalCell) aManufacturing.getThing(r, c)).changeState(random.nextDouble() < density);
+            }
+        }
+        aManufacturing.setCountingNeighbors(storage.equals("counting"));
+        return aManufacturing;
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+import domain.*;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how the tic-tac cycle scales with the number of threads.
+ * The same lattice is timed with every parallelism; the speedup is the ratio of the scores of one thread and of many.
+ * <br>
+ * Usage: {@code java -jar jmh/build/libs/jmh-2024-jmh.jar ParallelTicTacBenchmark -p threads=1,2,4,8}
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelTicTacBenchmark {
+    @Param({"objects", "packed"})
+    public String storage; //The storage of the lattice
+
+    @Param({"1000"})
+    public int size; //The rows and columns of the lattice
+
+    @Param({"1", "2", "4"})
+    public int threads; //The threads performing the tic-tacs
+
+    private AManufacturing aManufacturing; //The lattice being advanced
+
+    /**
+     * Builds the lattice with its initial pattern and the parallelism to measure.
+     */
+    @Setup(Level.Trial)
+    public void build() {
+        aManufacturing = new AManufacturing(size, size, storage.equals("packed") ? AManufacturing.PACKED : AManufacturing.OBJECTS);
+        aManufacturing.setParallelism(threads);
+    }
+
+    /**
+     * Ends the threads of the lattice.
+     */
+    @TearDown(Level.Trial)
+    public void release() {
+        aManufacturing.setParallelism(1);
+    }
+
+    /**
+     * Performs one tic-tac.
+     */
+    @Benchmark
+    public void ticTac() {
+        aManufacturing.ticTac();
+    }
+}
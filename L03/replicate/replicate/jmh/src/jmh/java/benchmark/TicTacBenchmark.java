@@ -0,0 +1,51 @@
+package benchmark;
+import domain.*;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the cost of a tic-tac cycle as the lattice grows.
+ * For every size a fresh AManufacturing is built with the initial pattern, and its tic-tacs are timed
+ * one after the other, so the pattern goes on evolving as it does in a run.
+ * The {@code sparse} storage is a packed lattice that skips its quiescent tiles.
+ * <br>
+ * Usage: {@code java -jar jmh/build/libs/jmh-2024-jmh.jar TicTacBenchmark -p storage=packed -p size=1600 -prof gc}
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TicTacBenchmark {
+    @Param({"objects", "packed", "sparse"})
+    public String storage; //The storage of the lattice
+
+    @Param({"50", "100", "200", "400", "800", "1600"})
+    public int size; //The rows and columns of the lattice
+
+    private AManufacturing aManufacturing; //The lattice being advanced
+
+    /**
+     * Builds the lattice with its initial pattern.
+     */
+    @Setup(Level.Trial)
+    public void build() {
+        aManufacturing = new AManufacturing(size, size, storage.equals("objects") ? AManufacturing.OBJECTS : AManufacturing.PACKED);
+        aManufacturing.setSparse(storage.equals("sparse"));
+    }
+
+    /**
+     * Performs one tic-tac.
+     */
+    @Benchmark
+    public void ticTac() {
+        aManufacturing.ticTac();
+    }
+}
@@ -1,5 +1,13 @@
 package domain;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.lang.Class;
 import java.lang.reflect.Constructor;
 
@@ -13,30 +21,384 @@ import java.lang.reflect.Constructor;
  */
 
 public class AManufacturing {
-    private static int SIZE = 50;
+    /** Storage keeping every Thing of the lattice as an object */
+    public static final int OBJECTS = 0;
+
+    /** Storage keeping original cells as packed bits and only the other Things as objects */
+    public static final int PACKED = 1;
+
+    /** Movement where Things move as soon as they decide to, in row-major order */
+    public static final int IMMEDIATE = 0;
+
+    /** Movement where Things propose their moves while deciding, and the moves take place together */
+    public static final int INTENTS = 1;
+
+    /** Boundary where the lattice ends at its edges: beyond them lies a fixed halo of empty, inactive squares */
+    public static final int BOUNDED = 0;
+
+    /** Boundary where the lattice wraps around as a torus, so that every edge is next to the opposite one */
+    public static final int TORUS = 1;
+
+    /** Boundary that mirrors the lattice at its edges, so that beyond every edge lies the edge itself */
+    public static final int REFLECTING = 2;
+
+    private static final int SIZE = 50;
+    private static final int PARALLEL_FILL = 1 << 16; //The squares from which a fill uses the common pool when there is no pool of its own
+    private final int rows, columns;
+    private final CellKind[] cellKinds = CellKind.kindsOf(this); //The data shared by the cells of every type
+    private long seed = new SplittableRandom().nextLong(); //The seed the random choices of the Things derive from
+    private final int storage;
     private Thing[][] lattice;
+    private PackedLattice packed;
+    private ForkJoinPool pool;
+    private int movement = IMMEDIATE;
+    private int boundary = BOUNDED; //What lies beyond the edges of the lattice
+    private final Queue<Move> intents = new ConcurrentLinkedQueue<>();
+    private boolean movingByIntents;
+    private volatile boolean movesWhileDeciding, movesWhileChanging;
+    private final RowBands.Band findMovers = this::findMovers;
+    private final RowBands.Band decideRows = this::decideRows;
+    private final RowBands.Band changeRows = this::changeRows;
+    private long generation;
+    private static final byte ACTIVE_SQUARE = 1;
+    private byte[] squares; //The activity of the object lattice, padded by an empty border
+    private boolean readingActivity; //Whether the squares describe the lattice right now
+    private WallIndex wallIndex; //The squares covered by sticky walls and those next to them, or null before the first wall
+    private static final int COUNT_MASK = 15, COUNTED_ACTIVE = 16, COUNTED_CELL = 32;
+    private byte[] neighborCounts; //The active Things around every square, itself included, whether it is counted active and whether as a cell, padded, or null
+    private long[] staleCounts; //The positions whose activity may have changed since they were counted, one bit per position
+    private boolean readingCounts; //Whether the neighbour counts describe the lattice right now
+    private long countedCells; //The active cells among the Things counted active
+    private long[] restless; //The positions of the Things that may decide something new without a change around them, while the counts are kept
+    private long[] visits; //The positions the current tic-tac visits while the counts are kept
+    private final RowBands.Band decideVisits = this::decideVisits;
+    private final RowBands.Band changeVisits = this::changeVisits;
+    private long objectTicTacs; //The tic-tacs performed on the object lattice, which the steps of the original cells not visited follow
+    private long[] changes; //The positions changed since the changes were last taken, one bit per position, or null if not tracked
+    private boolean trackingChanges; //Whether the changes are tracked to be taken, and not only for the journal
+    private long[] statesBefore; //The packed states before the current tic-tacs, to find which ones changed
+    private final RowBands.Band recordChanges = this::recordChanges;
+    private LatticeJournal journal; //The journal every tic-tac is written to, or null
+    private TicTacMetrics metrics; //The metrics of the tic-tacs, or null when they are not taken
+    private long decided; //When the decide phase of the current tic-tac ended, while metrics are taken
+    private final RowBands.Band decideCountedRows = this::decideCountedRows;
+    private final RowBands.Band changeCountedRows = this::changeCountedRows;
+    private long[] evaluatedObjects; //The object Things of the packed lattice counted by type before the current tic-tac, while metrics are taken
     
     /**
      * Constructor for AManufacturing class.
-     * Initializes the lattice with null values and sets up the initial pattern of Things.
+     * Creates a square lattice of {@code SIZE x SIZE} and sets up the initial pattern of Things.
      */
     public AManufacturing() {
-        lattice = new Thing[SIZE][SIZE];
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                lattice[r][c] = null;
-            }
+        this(SIZE, SIZE);
+    }
+
+    /**
+     * Creates a square lattice of the given side and sets up the initial pattern of Things.
+     * @param size the number of rows and columns of the lattice.
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public AManufacturing(int size) {
+        this(size, size);
+    }
+
+    /**
+     * Creates a lattice with the given number of rows and columns and sets up the initial pattern of Things.
+     * @param rows the number of rows of the lattice.
+     * @param columns the number of columns of the lattice.
+     * @throws IllegalArgumentException if rows or columns are not positive.
+     */
+    public AManufacturing(int rows, int columns) {
+        this(rows, columns, OBJECTS);
+    }
+
+    /**
+     * Creates a lattice with the given number of rows and columns and storage, and sets up the initial pattern of Things.
+     * With {@code PACKED} storage the original cells are kept as bits, so very large lattices fit in memory;
+     * {@link #getThing(int, int)} then returns a view of the original cell at that position.
+     * @param rows the number of rows of the lattice.
+     * @param columns the number of columns of the lattice.
+     * @param storage the storage of the lattice, {@code OBJECTS} or {@code PACKED}.
+     * @throws IllegalArgumentException if rows or columns are not positive, or the storage is unknown.
+     */
+    public AManufacturing(int rows, int columns, int storage) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("The lattice must have at least one row and one column: " + rows + "x" + columns);
+        }
+        if (storage != OBJECTS && storage != PACKED) {
+            throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.storage = storage;
+        if (storage == PACKED) {
+            packed = new PackedLattice(this, rows, columns);
+        } else {
+            lattice = new Thing[rows][columns];
+            squares = new byte[(rows + 2) * (columns + 2)];
         }
         //someThings();
         initializePattern();
     }
 
     /**
-     * Returns the size of the lattice.
-     * @return the size of the lattice.
+     * Returns the size of a square lattice.
+     * @return the number of rows, which is also the number of columns.
+     * @throws IllegalStateException if the lattice is not square; use {@link #getRows()} and {@link #getColumns()}.
      */
     public int getSize() {
-        return SIZE;
+        if (rows != columns) {
+            throw new IllegalStateException("A " + rows + "x" + columns + " lattice is not square");
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the number of rows of the lattice.
+     * @return the number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of the lattice.
+     * @return the number of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the storage of the lattice.
+     * @return {@code OBJECTS} or {@code PACKED}.
+     */
+    public int getStorage() {
+        return storage;
+    }
+
+    /**
+     * Sets the number of threads used by {@link #ticTac()}.
+     * With more than one thread the rows are split in bands that decide and change in parallel,
+     * giving exactly the same lattice as a single thread. A phase in which some Thing moves
+     * (reflective cells while deciding, tourist cells while changing) still runs on one thread,
+     * because the order of its moves decides the result.
+     * @param parallelism the number of threads, 1 to run every tic-tac on the calling thread.
+     * @throws IllegalArgumentException if the parallelism is not positive.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be positive: " + parallelism);
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = (parallelism == 1 ? null : new ForkJoinPool(parallelism));
+    }
+
+    /**
+     * Returns the number of threads used by {@link #ticTac()}.
+     * @return the parallelism, 1 when tic-tacs run on the calling thread.
+     */
+    public int getParallelism() {
+        return (pool == null ? 1 : pool.getParallelism());
+    }
+
+    /**
+     * Sets whether {@link #ticTac()} only evaluates the regions of the lattice with activity.
+     * The lattice is split in tiles of 64x64 squares; a sparse tic-tac only decides and changes the tiles
+     * holding active cells or other Things and the tiles around them, so its cost follows the activity
+     * instead of the area. Elsewhere the original cells stay inactive and still take their step.
+     * Only {@code PACKED} lattices can be sparse, since object cells count their steps one by one.
+     * @param sparse {@code true} to skip the quiescent tiles.
+     * @throws IllegalStateException if the lattice does not have {@code PACKED} storage.
+     */
+    public void setSparse(boolean sparse) {
+        if (packed == null) {
+            if (sparse) {
+                throw new IllegalStateException("Only a PACKED lattice can skip its quiescent tiles");
+            }
+            return;
+        }
+        packed.setSparse(sparse);
+    }
+
+    /**
+     * Checks whether {@link #ticTac()} only evaluates the regions of the lattice with activity.
+     * @return {@code true} if quiescent tiles are skipped.
+     */
+    public boolean isSparse() {
+        return (packed != null && packed.isSparse());
+    }
+
+    /**
+     * Returns the number of 64x64 tiles evaluated by the last tic-tac.
+     * @return the number of tiles with activity and around them for a sparse lattice, otherwise every tile.
+     */
+    public int getActiveTiles() {
+        if (packed != null) {
+            return packed.getActiveTiles();
+        }
+        return ((rows + 63) / 64) * ((columns + 63) / 64);
+    }
+
+    /**
+     * Sets how Things move during {@link #ticTac()}.
+     * With {@code IMMEDIATE} movement a Thing moves as soon as it decides to, so the row-major order of the
+     * lattice decides who gets a contested position. With {@code INTENTS} movement every Thing only proposes
+     * its move while deciding; once all have decided, each contested position goes to the Thing that comes
+     * first in row-major order, the others are blocked, and all the moves take place before the change phase.
+     * Nothing then writes the lattice while deciding or changing, so both phases run in parallel.
+     * @param movement {@code IMMEDIATE} or {@code INTENTS}.
+     * @throws IllegalArgumentException if the movement is unknown.
+     */
+    public void setMovement(int movement) {
+        if (movement != IMMEDIATE && movement != INTENTS) {
+            throw new IllegalArgumentException("Unknown movement: " + movement);
+        }
+        this.movement = movement;
+    }
+
+    /**
+     * Returns how Things move during {@link #ticTac()}.
+     * @return {@code IMMEDIATE} or {@code INTENTS}.
+     */
+    public int getMovement() {
+        return movement;
+    }
+
+    /**
+     * Sets what lies beyond the edges of the lattice for the neighbourhoods of the squares at the edges.
+     * With {@code BOUNDED} edges nothing lies beyond them. On a {@code TORUS} the squares of an edge are next to the
+     * squares of the opposite edge, and reflective cells leaving through an edge come back through the opposite one.
+     * {@code REFLECTING} edges are their own mirror image: beyond an edge lies a copy of its own row or column.
+     * The tic-tacs read the squares beyond the edges from a halo around the lattice, filled once per tic-tac, so
+     * counting the neighbours of a square never checks the bounds of the lattice.
+     * @param boundary {@code BOUNDED}, {@code TORUS} or {@code REFLECTING}.
+     * @throws IllegalArgumentException if the boundary is unknown.
+     * @throws IllegalStateException if the edges are not {@code BOUNDED} while the lattice keeps neighbour counts.
+     */
+    public void setBoundary(int boundary) {
+        if (boundary != BOUNDED && boundary != TORUS && boundary != REFLECTING) {
+            throw new IllegalArgumentException("Unknown boundary: " + boundary);
+        }
+        if (boundary != BOUNDED && neighborCounts != null) {
+            throw new IllegalStateException("The neighbour counts are only kept with BOUNDED edges");
+        }
+        this.boundary = boundary;
+        if (packed != null) {
+            packed.setBoundary(boundary);
+        } else if (boundary == BOUNDED) {
+            // The halo of bounded edges is empty, and findMovers only writes the squares inside
+            Arrays.fill(squares, 0, columns + 2, (byte) 0);
+            Arrays.fill(squares, (rows + 1) * (columns + 2), squares.length, (byte) 0);
+            for (int r = 1; r <= rows; r++) {
+                squares[r * (columns + 2)] = 0;
+                squares[r * (columns + 2) + columns + 1] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns what lies beyond the edges of the lattice.
+     * @return {@code BOUNDED}, {@code TORUS} or {@code REFLECTING}.
+     */
+    public int getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * Returns the row of the lattice that a row stands for: the row itself inside the lattice, the row on the other
+     * side of a torus, the mirrored row beyond a reflecting edge, or -1 beyond a bounded edge.
+     * @param r the row index, which may be outside of the lattice.
+     * @return the row index inside the lattice, or -1.
+     */
+    int haloRow(int r) {
+        return halo(r, rows);
+    }
+
+    /**
+     * Returns the column of the lattice that a column stands for, as {@link #haloRow(int)} does for rows.
+     * @param c the column index, which may be outside of the lattice.
+     * @return the column index inside the lattice, or -1.
+     */
+    int haloColumn(int c) {
+        return halo(c, columns);
+    }
+
+    /**
+     * Returns the index inside {@code [0, size)} that an index stands for under the boundary, or -1 if none.
+     */
+    private int halo(int i, int size) {
+        if (i >= 0 && i < size) {
+            return i;
+        }
+        switch (boundary) {
+            case TORUS:
+                return Math.floorMod(i, size);
+            case REFLECTING:
+                return Math.min(size - 1, Math.max(0, (i < 0 ? -i - 1 : 2 * size - i - 1)));
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Checks if a tic-tac moving Things by intents is in progress.
+     * @return {@code true} if moves are being proposed or have already taken place in this tic-tac.
+     */
+    boolean movesByIntents() {
+        return movingByIntents;
+    }
+
+    /**
+     * Moves a cell to an empty position, or proposes the move during a tic-tac by intents.
+     * A cell moving to its own position stays where it is, and does not count as a move.
+     * @param cell the cell to move.
+     * @param r the row to move to.
+     * @param c the column to move to.
+     * @return {@code true} if the cell has moved, {@code false} if the move was only proposed or it stayed.
+     */
+    boolean move(Cell cell, int r, int c) {
+        if (r == cell.row && c == cell.column) {
+            return false;
+        }
+        if (movingByIntents) {
+            intents.add(new Move(cell, r, c));
+            return false;
+        }
+        setThing(cell.row, cell.column, null);
+        cell.row = r;
+        cell.column = c;
+        setThing(r, c, cell);
+        if (TicTacMetrics.AVAILABLE && metrics != null) {
+            metrics.moved();
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the moves proposed during the decide phase and makes the winning ones.
+     * Each position goes to the Thing that comes first in row-major order; the others are blocked.
+     */
+    private void commitMoves() {
+        List<Move> moves = new ArrayList<>(intents);
+        intents.clear();
+        moves.sort(Comparator.comparingLong(move -> (long) move.fromRow * columns + move.fromColumn));
+        Set<Long> taken = new HashSet<>();
+        for (Move move : moves) {
+            if (isEmpty(move.toRow, move.toColumn) && taken.add((long) move.toRow * columns + move.toColumn)) {
+                setThing(move.fromRow, move.fromColumn, null);
+                move.cell.row = move.toRow;
+                move.cell.column = move.toColumn;
+                setThing(move.toRow, move.toColumn, move.cell);
+                if (TicTacMetrics.AVAILABLE && metrics != null) {
+                    metrics.moved();
+                }
+            } else {
+                move.cell.moveBlocked();
+            }
+        }
     }
 
     /**
@@ -46,6 +408,9 @@ public class AManufacturing {
      * @return the Thing at the specified position, or null if none exists.
      */
     public Thing getThing(int r, int c) {
+        if (packed != null) {
+            return packed.get(r, c);
+        }
         return lattice[r][c];
     }
 
@@ -56,7 +421,34 @@ public class AManufacturing {
      * @param e the Thing to be placed at the specified position.
      */
     public void setThing(int r, int c, Thing e) {
-        lattice[r][c] = e;
+        boolean changed;
+        if (packed != null) {
+            changed = packed.set(r, c, e);
+        } else {
+            changed = (lattice[r][c] != e);
+            lattice[r][c] = e;
+        }
+        if (changed && changes != null) {
+            changes[r * wordsPerRow() + (c >>> 6)] |= 1L << c;
+        }
+        if (changed && neighborCounts != null) {
+            recount(r, c);
+            // The Things around may decide otherwise now, even if the count stays the same
+            staleCounts[r * wordsPerRow() + (c >>> 6)] |= 1L << c;
+            if (e != null && !isSteady(e)) {
+                restless[r * wordsPerRow() + (c >>> 6)] |= 1L << c;
+            } else {
+                restless[r * wordsPerRow() + (c >>> 6)] &= ~(1L << c);
+            }
+        }
+        if (changed && e instanceof StickyWall) {
+            if (wallIndex == null) {
+                wallIndex = new WallIndex(rows, columns);
+            }
+            wallIndex.add(r, c, (StickyWall) e);
+        } else if (changed && wallIndex != null) {
+            wallIndex.remove(r, c);
+        }
     }
 
     /**
@@ -77,10 +469,8 @@ public class AManufacturing {
         setThing(20, 20, walk);
         
         // POISON
-        Poison mercury = new Poison();
-        Poison arsenic = new Poison();
-        setThing(0, 0, mercury);
-        setThing(0, getSize() - 1, arsenic);
+        Poison mercury = new Poison(this, 0, 0);
+        Poison arsenic = new Poison(this, 0, getColumns() - 1);
         
         // Reflective Cells
         ReflectiveCell alice = new ReflectiveCell(this, 25, 25, true);
@@ -107,20 +497,126 @@ public class AManufacturing {
     /**
      * Initializes the lattice pattern with inactive original cells.
      * Sets up a 10x10 sub-grid in the bottom-left corner with active cells.
+     * The sub-grid is anchored to the last rows, so it follows the lattice size.
      */
     public void initializePattern() {
         // Initialize the entire lattice with inactive original cells
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                OriginalCell cell = new OriginalCell(this, r, c, false);
-                setThing(r, c, cell);
-            }
+        wallIndex = null;
+        if (packed != null) {
+            packed.fill(false);
+        } else {
+            fillRegion(0, 0, rows - 1, columns - 1, true, 0);
         }
 
         // Place active cells in the 10x10 sub-grid in the bottom-left corner
-        ((OriginalCell) getThing(44, 5)).changeState(true); // Activate cell at (44,5)
-        ((OriginalCell) getThing(45, 4)).changeState(true); // Activate cell at (45,4)
-        ((OriginalCell) getThing(45, 5)).changeState(true); // Activate cell at (45,5)
+        activatePatternCell(rows - 6, 5); // Activate cell at (44,5) on a 50x50 lattice
+        activatePatternCell(rows - 5, 4); // Activate cell at (45,4) on a 50x50 lattice
+        activatePatternCell(rows - 5, 5); // Activate cell at (45,5) on a 50x50 lattice
+    }
+
+    /**
+     * Fills the squares from (top, left) to (bottom, right), both included, with new original cells, each one active
+     * with the given probability. The states are drawn row by row from the seed of the lattice, so a fill gives
+     * the same lattice whatever the number of threads.
+     * The rows are filled in parallel bands, on the pool of {@link #setParallelism(int)} or, for large regions
+     * of a lattice without one, on the common pool, and the cells are stored without going through
+     * {@link #setThing(int, int, Thing)} square by square.
+     * @param top the first row of the region.
+     * @param left the first column of the region.
+     * @param bottom the last row of the region.
+     * @param right the last column of the region.
+     * @param density the probability of every cell being active, 0 for inactive cells and 1 for active ones.
+     * @throws IllegalArgumentException if the region is not inside the lattice, or the density is not between 0 and 1.
+     */
+    public void fill(int top, int left, int bottom, int right, double density) {
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("The density must be between 0 and 1: " + density);
+        }
+        fillRegion(top, left, bottom, right, true, density);
+    }
+
+    /**
+     * Empties the squares from (top, left) to (bottom, right), both included, as {@link #fill} fills them.
+     * @param top the first row of the region.
+     * @param left the first column of the region.
+     * @param bottom the last row of the region.
+     * @param right the last column of the region.
+     * @throws IllegalArgumentException if the region is not inside the lattice.
+     */
+    public void clear(int top, int left, int bottom, int right) {
+        fillRegion(top, left, bottom, right, false, 0);
+    }
+
+    /**
+     * Fills a region with original cells or empties it, in parallel bands of rows, and records what
+     * {@link #setThing(int, int, Thing)} would have recorded for every square.
+     */
+    private void fillRegion(int top, int left, int bottom, int right, boolean cells, double density) {
+        if (top > bottom || left > right || !inLatice(top, left) || !inLatice(bottom, right)) {
+            throw new IllegalArgumentException("The region from (" + top + "," + left + ") to ("
+                + bottom + "," + right + ") is not inside the lattice");
+        }
+        if (wallIndex != null && !wallIndex.isEmpty()) {
+            wallIndex.removeRegion(top, left, bottom, right);
+        }
+        int height = bottom - top + 1;
+        boolean large = (long) height * (right - left + 1) >= PARALLEL_FILL;
+        ForkJoinPool fillPool = (pool != null ? pool : large ? ForkJoinPool.commonPool() : null);
+        if (packed != null) {
+            packed.beginFill(top, left, bottom, right);
+            RowBands.run(fillPool, height, (from, to) -> {
+                long[] active = new long[wordsPerRow()];
+                for (int r = top + from; r < top + to; r++) {
+                    SplittableRandom random = (cells && density > 0 && density < 1 ? randomAt(r, left) : null);
+                    for (int w = left >>> 6; w <= right >>> 6; w++) {
+                        active[w] = (cells && density >= 1 ? -1L : 0);
+                    }
+                    for (int c = left; random != null && c <= right; c++) {
+                        if (random.nextDouble() < density) {
+                            active[c >>> 6] |= 1L << c;
+                        }
+                    }
+                    packed.fillRow(r, left, right, cells, active);
+                }
+            });
+            packed.endFill(top, left, bottom, right, cells);
+        } else {
+            CellKind kind = cellKinds[CellKind.ORIGINAL];
+            RowBands.run(fillPool, height, (from, to) -> {
+                for (int r = top + from; r < top + to; r++) {
+                    SplittableRandom random = (cells && density > 0 && density < 1 ? randomAt(r, left) : null);
+                    Thing[] row = lattice[r];
+                    for (int c = left; c <= right; c++) {
+                        boolean active = (random != null ? random.nextDouble() < density : density >= 1);
+                        row[c] = (cells ? new OriginalCell(kind, r, c, active) : null);
+                    }
+                }
+            });
+        }
+        int words = wordsPerRow();
+        for (int r = top; r <= bottom; r++) {
+            for (int w = left >>> 6; w <= right >>> 6; w++) {
+                long mask = PackedLattice.mask(w, left, right);
+                if (changes != null) {
+                    changes[r * words + w] |= mask;
+                }
+                if (staleCounts != null) {
+                    staleCounts[r * words + w] |= mask;
+                    restless[r * words + w] &= ~mask;
+                }
+            }
+        }
+    }
+
+    /**
+     * Activates the original cell of the initial pattern at the given position, if it fits in the lattice.
+     * @param r the row index.
+     * @param c the column index.
+     */
+    private void activatePatternCell(int r, int c) {
+        if (inLatice(r, c)) {
+            ((OriginalCell) getThing(r, c)).changeState(true);
+        }
     }
 
     /**
@@ -133,8 +629,8 @@ public class AManufacturing {
         int num = 0;
         for (int dr = -1; dr < 2; dr++) {
             for (int dc = -1; dc < 2; dc++) {
-                if ((dr != 0 || dc != 0) && inLatice(r + dr, c + dc) && 
-                    (lattice[r + dr][c + dc] != null) && (lattice[r + dr][c + dc].isActive())) num++;
+                int nr = haloRow(r + dr), nc = haloColumn(c + dc);
+                if ((dr != 0 || dc != 0) && nr >= 0 && nc >= 0 && isActive(nr, nc)) num++;
             }
         }
         return (inLatice(r, c) ? num : 0);
@@ -147,8 +643,24 @@ public class AManufacturing {
      * @return {@code true} if the position is empty, {@code false} otherwise.
      */
     public boolean isEmpty(int r, int c) {
+        if (packed != null) {
+            return (inLatice(r, c) && packed.isEmpty(r, c));
+        }
         return (inLatice(r, c) && lattice[r][c] == null);
     }    
+
+    /**
+     * Checks if the Thing at a position inside the lattice is active.
+     * @param r the row index.
+     * @param c the column index.
+     * @return {@code true} if there is an active Thing at the position, {@code false} otherwise.
+     */
+    private boolean isActive(int r, int c) {
+        if (packed != null) {
+            return packed.isActive(r, c);
+        }
+        return (lattice[r][c] != null) && (lattice[r][c].isActive());
+    }
         
     /**
      * Checks if the specified position is within the bounds of the lattice.
@@ -157,31 +669,1041 @@ public class AManufacturing {
      * @return {@code true} if the position is within bounds, {@code false} otherwise.
      */
     protected boolean inLatice(int r, int c) {
-        return ((0 <= r) && (r < SIZE) && (0 <= c) && (c < SIZE));
+        return ((0 <= r) && (r < rows) && (0 <= c) && (c < columns));
     }
    
     /**
      * Performs a tic-tac cycle on all Things in the lattice.
      * In each cycle, the Things decide their next state and then change their state accordingly.
+     * With {@code INTENTS} movement the proposed moves take place between both phases.
      */
     public void ticTac() {
-        // Determine the next state of cells
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                Thing thing = lattice[r][c];
-                if (thing != null) {
-                    thing.decide();
-                }
+        movingByIntents = (movement == INTENTS);
+        long started = 0;
+        if (TicTacMetrics.AVAILABLE && metrics != null) {
+            started = System.nanoTime();
+            metrics.beginActive();
+            if (packed != null) {
+                evaluatedObjects = packed.countObjects();
             }
         }
-        // Update the state of cells
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                Thing thing = lattice[r][c];
-                if (thing != null) {
-                    thing.change();
+        try {
+            if (packed != null) {
+                beginPackedChanges();
+                packed.decide(pool);
+                if (movingByIntents) {
+                    commitMoves();
+                }
+                if (TicTacMetrics.AVAILABLE && metrics != null) {
+                    decided = System.nanoTime();
                 }
+                packed.change(pool);
+                endPackedChanges();
+            } else {
+                ticTacObjects();
+            }
+            generation++;
+            if (TicTacMetrics.AVAILABLE && metrics != null) {
+                measure(started);
+            }
+            if (journal != null) {
+                recordJournal();
+            }
+        } finally {
+            movingByIntents = false;
+            intents.clear();
+        }
+    }
+
+    /**
+     * Advances the lattice by the given number of tic-tacs, as calling {@link #ticTac()} that many times.
+     * The tic-tacs run in a tight loop that allocates nothing per tic-tac on lattices of original cells,
+     * and a {@code PACKED} lattice made only of original cells leaps there at once, in time that grows
+     * with the logarithm of the number of tic-tacs, unless metrics are taken. A journal then gets a single record
+     * of the whole leap.
+     * @param generations the number of tic-tacs.
+     * @throws IllegalArgumentException if the number of tic-tacs is negative.
+     */
+    public void ticTac(int generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("The number of tic-tacs cannot be negative: " + generations);
+        }
+        if (packed != null && metrics == null && packed.canLeap(generations)) {
+            beginPackedChanges();
+            packed.leap(generations);
+            endPackedChanges();
+            generation += generations;
+            if (journal != null) {
+                recordJournal();
+            }
+            return;
+        }
+        for (int i = 0; i < generations; i++) {
+            ticTac();
+        }
+    }
+
+    /**
+     * Advances the lattice by the given number of tic-tacs, letting an observer look at it every few tic-tacs.
+     * Between two observations the tic-tacs run as in {@link #ticTac(int)}.
+     * @param generations the number of tic-tacs.
+     * @param every the number of tic-tacs between two observations.
+     * @param observer the observer, told after every {@code every} tic-tacs and after the last one.
+     * @throws IllegalArgumentException if the number of tic-tacs is negative or {@code every} is not positive.
+     */
+    public void ticTac(int generations, int every, TicTacObserver observer) {
+        if (every <= 0) {
+            throw new IllegalArgumentException("The tic-tacs between observations must be positive: " + every);
+        }
+        if (generations < 0) {
+            throw new IllegalArgumentException("The number of tic-tacs cannot be negative: " + generations);
+        }
+        for (int done = 0; done < generations; ) {
+            int chunk = Math.min(every, generations - done);
+            ticTac(chunk);
+            done += chunk;
+            observer.observe(this, generation);
+        }
+    }
+
+    /**
+     * Performs tic-tacs until the condition holds, checking it before every tic-tac.
+     * A condition that never holds keeps the lattice going; use {@link #runUntil(Predicate, int)} to set a limit.
+     * @param condition the condition that stops the tic-tacs.
+     * @return the number of tic-tacs performed.
+     */
+    public int runUntil(Predicate<AManufacturing> condition) {
+        return runUntil(condition, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Performs tic-tacs until the condition holds or the given number of tic-tacs is reached.
+     * The condition is checked before every tic-tac.
+     * @param condition the condition that stops the tic-tacs.
+     * @param maxGenerations the most tic-tacs to perform.
+     * @return the number of tic-tacs performed.
+     */
+    public int runUntil(Predicate<AManufacturing> condition, int maxGenerations) {
+        int done = 0;
+        while (done < maxGenerations && !condition.test(this)) {
+            ticTac();
+            done++;
+        }
+        return done;
+    }
+
+    /**
+     * Sets whether the tic-tacs are measured: the latency of their phases, the Things of every type they evaluate,
+     * the active cells, the moves and the cells that become stuck. Enabling the metrics starts them from zero.
+     * @param enabled {@code true} to take the metrics, {@code false} to stop taking them.
+     * @throws IllegalStateException if the metrics are enabled while left out with {@code -Ddomain.metrics.off=true}.
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled && !TicTacMetrics.AVAILABLE) {
+            throw new IllegalStateException("The metrics are left out by -Ddomain.metrics.off=true");
+        }
+        if (!enabled) {
+            metrics = null;
+        } else if (metrics == null) {
+            metrics = new TicTacMetrics();
+        }
+    }
+
+    /**
+     * Returns the metrics of the tic-tacs performed since they were enabled.
+     * @return the metrics, or null if they are not taken.
+     */
+    public TicTacMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Counts a cell that became stuck, when the metrics are taken, and records its position as changed, since the
+     * journal writes the stuck flags. Safe to call from the band of the row of the position.
+     * @param r the row index.
+     * @param c the column index.
+     */
+    void becameStuck(int r, int c) {
+        if (TicTacMetrics.AVAILABLE && metrics != null) {
+            metrics.stuck();
+        }
+        if (changes != null) {
+            changes[r * wordsPerRow() + (c >>> 6)] |= 1L << c;
+        }
+    }
+
+    /**
+     * Records the metrics of the tic-tac just performed: the latency of its phases, then the Things it evaluated
+     * and the active cells it left. The object lattice counts them band by band while deciding and changing;
+     * the packed lattice counts its words and the object Things it holds.
+     * @param started when the tic-tac started.
+     */
+    private void measure(long started) {
+        metrics.recordTicTac(decided - started, System.nanoTime() - decided);
+        if (packed != null) {
+            long[] counts = evaluatedObjects;
+            evaluatedObjects = null;
+            metrics.addEvaluated(packed.countEvaluated() + counts[0], counts[1], counts[2], counts[3], counts[4], counts[5]);
+            metrics.addActive(packed.countActive());
+        }
+        metrics.endActive();
+    }
+
+    /**
+     * Counts a Thing by type: original cells, plain cells, tourist cells, reflective cells, poison and sticky walls.
+     */
+    static void count(Thing thing, long[] counts) {
+        if (thing instanceof OriginalCell) {
+            counts[0]++;
+        } else if (thing instanceof TouristCell) {
+            counts[2]++;
+        } else if (thing instanceof ReflectiveCell) {
+            counts[3]++;
+        } else if (thing instanceof Cell) {
+            counts[1]++;
+        } else if (thing instanceof Poison) {
+            counts[4]++;
+        } else if (thing instanceof StickyWall) {
+            counts[5]++;
+        }
+    }
+
+    /**
+     * Sets the seed the random choices of the Things derive from, such as the direction of a reflective cell or
+     * the first color of a poison, so that a run can be repeated. Every lattice starts with a seed of its own.
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the seed the random choices of the Things derive from.
+     * @return the seed, to repeat this run with {@link #setSeed(long)}.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a random generator for a Thing created at the given position.
+     * The generator only depends on the seed, the generation and the position, and no state is shared between
+     * generators, so Things created in any order, or from parallel bands of rows, make the same choices.
+     * @param r the row index.
+     * @param c the column index.
+     * @return a new generator.
+     */
+    SplittableRandom randomAt(int r, int c) {
+        long position = (long) r * columns + c;
+        return new SplittableRandom(seed + 0x9E3779B97F4A7C15L * (position + 1) + 0xC2B2AE3D27D4EB4FL * generation);
+    }
+
+    /**
+     * Returns the number of tic-tacs performed since the lattice was created.
+     * @return the generation of the lattice.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Performs a tic-tac cycle on the object lattice.
+     * While the neighbour counts are kept and nothing moves, only the Things that may decide something new are visited.
+     */
+    private void ticTacObjects() {
+        if (neighborCounts != null && !movingByIntents && !restlessMove()) {
+            ticTacVisits();
+            objectTicTacs++;
+            return;
+        }
+        // Read the squares once, and find the Things that move while deciding or changing, since their phase must keep the row-major order
+        movesWhileDeciding = false;
+        movesWhileChanging = false;
+        RowBands.run(pool, rows, findMovers);
+        if (boundary != BOUNDED) {
+            fillHalo();
+        }
+        if (neighborCounts != null) {
+            refreshCounts(false);
+        }
+        try {
+            // Determine the next state of cells; moving Things make the activity of the squares stale, but not the counts
+            readingActivity = !movesWhileDeciding;
+            readingCounts = (neighborCounts != null);
+            boolean measured = (TicTacMetrics.AVAILABLE && metrics != null);
+            RowBands.run(movesWhileDeciding ? null : pool, rows, measured ? decideCountedRows : decideRows);
+            readingActivity = false;
+            readingCounts = false;
+            if (movingByIntents) {
+                commitMoves();
+            }
+            if (TicTacMetrics.AVAILABLE && metrics != null) {
+                decided = System.nanoTime();
             }
+            // Update the state of cells
+            RowBands.run(movesWhileChanging ? null : pool, rows, measured ? changeCountedRows : changeRows);
+            if (changes != null) {
+                RowBands.run(pool, rows, recordChanges);
+            }
+        } finally {
+            readingActivity = false;
+            readingCounts = false;
+        }
+        objectTicTacs++;
+    }
+
+    /**
+     * Performs a tic-tac cycle on the object lattice that only visits the squares around the positions whose activity
+     * changed, and the restless Things. An original cell whose count and state stayed the same would decide the state
+     * it already has, and a sticky wall never changes, so they are left alone and only their steps go on.
+     * Only valid while the neighbour counts are kept and no Thing moves.
+     */
+    private void ticTacVisits() {
+        int words = wordsPerRow();
+        for (int r = 0; r < rows; r++) {
+            for (int w = 0; w < words; w++) {
+                long v = staleColumn(r, w);
+                long around = v | (v << 1) | (v >>> 1) | (staleColumn(r, w - 1) >>> 63) | (staleColumn(r, w + 1) << 63);
+                visits[r * words + w] = (around | restless[r * words + w]) & PackedLattice.mask(w, 0, columns - 1);
+            }
+        }
+        refreshCounts(false);
+        try {
+            readingCounts = true;
+            RowBands.run(pool, rows, decideVisits);
+            readingCounts = false;
+            if (TicTacMetrics.AVAILABLE && metrics != null) {
+                decided = System.nanoTime();
+            }
+            RowBands.run(pool, rows, changeVisits);
+            if (TicTacMetrics.AVAILABLE && metrics != null) {
+                // The positions stay stale, so that the next tic-tac still visits the squares around them
+                refreshCounts(true);
+                metrics.addActive(countedCells);
+            }
+        } finally {
+            readingCounts = false;
+        }
+    }
+
+    /**
+     * Returns the positions of a word of a row whose activity may have changed, or that of the rows above or below.
+     */
+    private long staleColumn(int r, int w) {
+        int words = wordsPerRow();
+        if (w < 0 || w >= words) {
+            return 0;
+        }
+        long v = staleCounts[r * words + w];
+        if (r > 0) {
+            v |= staleCounts[(r - 1) * words + w];
+        }
+        if (r < rows - 1) {
+            v |= staleCounts[(r + 1) * words + w];
+        }
+        return v;
+    }
+
+    /**
+     * Checks if some restless Thing moves, which needs every Thing visited in row-major order.
+     */
+    private boolean restlessMove() {
+        int words = wordsPerRow();
+        for (int i = 0; i < restless.length; i++) {
+            for (long bits = restless[i]; bits != 0; bits &= bits - 1) {
+                Thing thing = lattice[i / words][((i % words) << 6) + Long.numberOfTrailingZeros(bits)];
+                if (thing instanceof ReflectiveCell || thing instanceof TouristCell) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a Thing only decides something new when the activity around it changes: an original cell, which reads
+     * the neighbour counts, or a sticky wall, which never changes. Subclasses may decide otherwise, so they are not.
+     */
+    private static boolean isSteady(Thing thing) {
+        return (thing.getClass() == OriginalCell.class || thing.getClass() == StickyWall.class);
+    }
+
+    /**
+     * Reads the activity of the given rows into the squares, and looks for Things
+     * that move while deciding or while changing.
+     * @param from the first row.
+     * @param to the row after the last one.
+     */
+    private void findMovers(int from, int to) {
+        for (int r = from; r < to; r++) {
+            int i = (r + 1) * (columns + 2) + 1;
+            for (int c = 0; c < columns; c++, i++) {
+                Thing thing = lattice[r][c];
+                byte square = 0;
+                if (thing != null) {
+                    if (thing.isActive()) {
+                        square |= ACTIVE_SQUARE;
+                    }
+                    if (movingByIntents) {
+                        // Moves wait until every Thing has decided
+                    } else if (thing instanceof ReflectiveCell) {
+                        movesWhileDeciding = true;
+                    } else if (thing instanceof TouristCell) {
+                        movesWhileChanging = true;
+                    }
+                }
+                squares[i] = square;
+            }
+        }
+    }
+
+    /**
+     * Copies into the halo of the squares the activity the boundary puts beyond the edges: the opposite edges
+     * of a torus, or the edges themselves when they reflect. The corners follow from copying the columns first.
+     */
+    private void fillHalo() {
+        int width = columns + 2;
+        byte[] s = squares;
+        int west = haloColumn(-1) + 1, east = haloColumn(columns) + 1;
+        for (int r = 1; r <= rows; r++) {
+            s[r * width] = s[r * width + west];
+            s[r * width + columns + 1] = s[r * width + east];
+        }
+        System.arraycopy(s, (haloRow(-1) + 1) * width, s, 0, width);
+        System.arraycopy(s, (haloRow(rows) + 1) * width, s, (rows + 1) * width, width);
+    }
+
+    /**
+     * Records the positions of the given rows whose activity changed during the tic-tac, by comparing it with
+     * the activity read into the squares before deciding. The Poison changes its color every tic-tac, so its
+     * positions are always recorded.
+     * @param from the first row.
+     * @param to the row after the last one.
+     */
+    private void recordChanges(int from, int to) {
+        int words = wordsPerRow();
+        for (int r = from; r < to; r++) {
+            int i = (r + 1) * (columns + 2) + 1;
+            for (int c = 0; c < columns; c++, i++) {
+                Thing thing = lattice[r][c];
+                boolean active = (thing != null && thing.isActive());
+                if (active != ((squares[i] & ACTIVE_SQUARE) != 0) || thing instanceof Poison) {
+                    changes[r * words + (c >>> 6)] |= 1L << c;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the packed states before some tic-tacs, when the changes are tracked.
+     */
+    private void beginPackedChanges() {
+        if (changes != null) {
+            packed.copyStates(statesBefore);
+        }
+    }
+
+    /**
+     * Records the packed positions whose state changed since {@link #beginPackedChanges()}, when the changes are tracked.
+     */
+    private void endPackedChanges() {
+        if (changes != null) {
+            packed.recordChanges(statesBefore, changes);
+        }
+    }
+
+    /**
+     * Returns the number of 64-bit words that hold the positions of a row in the tracked changes.
+     */
+    private int wordsPerRow() {
+        return (columns + 63) >>> 6;
+    }
+
+    /**
+     * Sets whether the lattice tracks the positions that change, so that a view of the lattice can repaint only them.
+     * While tracked, every tic-tac and every {@link #setThing(int, int, Thing)} records the positions whose Thing
+     * appears, disappears or changes its state or its color.
+     * @param tracking {@code true} to track the changes, {@code false} to stop tracking them.
+     */
+    public void setTrackingChanges(boolean tracking) {
+        trackingChanges = tracking;
+        keepChanges(tracking || journal != null);
+    }
+
+    /**
+     * Keeps or drops the positions that change, which both the taken changes and the journal are made of.
+     * @param keep {@code true} to keep the changes.
+     */
+    private void keepChanges(boolean keep) {
+        if (!keep) {
+            changes = null;
+            statesBefore = null;
+        } else if (changes == null) {
+            changes = new long[rows * wordsPerRow()];
+            statesBefore = (packed != null ? new long[rows * wordsPerRow()] : null);
+        }
+    }
+
+    /**
+     * Checks whether the lattice tracks the positions that change.
+     * @return {@code true} if the changes are tracked.
+     */
+    public boolean isTrackingChanges() {
+        return trackingChanges;
+    }
+
+    /**
+     * Returns the positions changed since the changes were last taken, and forgets them.
+     * The position {@code (r, c)} is the bit {@code r * getColumns() + c} of the result.
+     * @return the changed positions, empty if the changes are not tracked.
+     */
+    public BitSet takeChanges() {
+        BitSet taken = new BitSet();
+        if (!trackingChanges) {
+            return taken;
+        }
+        if (journal != null) {
+            journal.remember(changes);
+        }
+        int words = wordsPerRow();
+        for (int r = 0; r < rows; r++) {
+            for (int w = 0; w < words; w++) {
+                long bits = changes[r * words + w];
+                changes[r * words + w] = 0;
+                while (bits != 0) {
+                    taken.set(r * columns + (w << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Saves the whole state of the lattice in a compact binary file, written through a memory-mapped file.
+     * @param file the file to write, replaced if it exists.
+     * @throws IOException if the file cannot be written or the lattice holds a Thing that cannot be saved.
+     */
+    public void save(Path file) throws IOException {
+        LatticeFile.save(this, file);
+    }
+
+    /**
+     * Loads a lattice saved by {@link #save(Path)}.
+     * @param file the file to read.
+     * @param storage the storage of the loaded lattice, {@code OBJECTS} or {@code PACKED}, whatever the saved one was.
+     * @return the lattice as it was saved.
+     * @throws IOException if the file cannot be read or is not a saved lattice.
+     */
+    public static AManufacturing load(Path file, int storage) throws IOException {
+        return LatticeFile.load(file, storage);
+    }
+
+    /**
+     * Reads a pattern of Things into the lattice, run length encoded (RLE) or as plain text, as it streams.
+     * The squares the pattern does not mention keep what they had; see {@link PatternReader} for the tags.
+     * @param in the pattern.
+     * @param top the row where the first row of the pattern goes.
+     * @param left the column where the first column of the pattern goes.
+     * @throws IOException if the pattern cannot be read or is not well formed.
+     */
+    public void importPattern(Reader in, int top, int left) throws IOException {
+        PatternReader.read(this, in, top, left);
+    }
+
+    /**
+     * Reads a pattern file into the lattice, as {@link #importPattern(Reader, int, int)} does.
+     * @param file the pattern file, in UTF-8.
+     * @param top the row where the first row of the pattern goes.
+     * @param left the column where the first column of the pattern goes.
+     * @throws IOException if the file cannot be read or is not a well formed pattern.
+     */
+    public void importPattern(Path file, int top, int left) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            importPattern(in, top, left);
+        }
+    }
+
+    /**
+     * Starts writing a journal of the lattice: after every tic-tac, the positions whose original cell toggled and
+     * the positions whose Thing appeared, moved away, disappeared or changed are appended to the file, with what was
+     * there before and what is there now. Save the lattice when the journal starts, so that it can be replayed.
+     * A journal already being written is stopped first.
+     * @param file the file of the journal, replaced if it exists.
+     * @throws IOException if the file cannot be written or the lattice holds a Thing that cannot be saved.
+     */
+    public void startJournal(Path file) throws IOException {
+        stopJournal();
+        journal = new LatticeJournal(this, file);
+        keepChanges(true);
+    }
+
+    /**
+     * Appends to the journal the record of the tic-tacs just performed, made from the positions changed since
+     * the last record.
+     */
+    private void recordJournal() {
+        journal.remember(changes);
+        if (!trackingChanges) {
+            Arrays.fill(changes, 0);
+        }
+        journal.record();
+    }
+
+    /**
+     * Stops writing the journal, after writing the changes made since the last tic-tac.
+     * @throws IOException if the journal cannot be written.
+     */
+    public void stopJournal() throws IOException {
+        if (journal != null) {
+            LatticeJournal stopped = journal;
+            journal = null;
+            stopped.remember(changes);
+            keepChanges(trackingChanges);
+            stopped.close();
+        }
+    }
+
+    /**
+     * Checks if a journal of the lattice is being written.
+     * @return {@code true} if every tic-tac is written to a journal.
+     */
+    public boolean isJournaling() {
+        return journal != null;
+    }
+
+    /**
+     * Replays a journal forwards or backwards until the given generation, without performing any tic-tac.
+     * The lattice must be at a generation of the journal, as loaded from the lattice saved when the journal started
+     * or as left by an earlier replay.
+     * @param file the journal to replay.
+     * @param generation the generation to reach.
+     * @throws IOException if the file cannot be read or is not a journal of a lattice of this size.
+     * @throws IllegalArgumentException if the lattice or the generation to reach are not within the journal.
+     */
+    public void replay(Path file, long generation) throws IOException {
+        LatticeJournal.replay(this, file, generation);
+    }
+
+    /**
+     * Places an original cell with the steps of a cell that was always there, replacing whatever was there.
+     * @param r the row index.
+     * @param c the column index.
+     * @param active whether the cell is active.
+     * @param isStuck whether the cell is stuck.
+     */
+    void putOriginal(int r, int c, boolean active, boolean isStuck) {
+        if (packed != null) {
+            setThing(r, c, null);
+            packed.putCell(r, c, active, isStuck);
+        } else {
+            OriginalCell cell = new OriginalCell(this, r, c, active);
+            cell.isStuck = isStuck;
+            cell.setSteps((int) (generation * (isStuck ? 2 : 1)));
+        }
+    }
+
+    /**
+     * Returns the packed storage of the lattice.
+     * @return the packed storage, or null if the Things are kept as objects.
+     */
+    PackedLattice packedLattice() {
+        return packed;
+    }
+
+    /**
+     * Sets the number of tic-tacs performed, as when the lattice is loaded.
+     * @param generation the generation of the lattice.
+     */
+    void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Pictures the lattice as it is now, so that it can be drawn without asking every Thing and while
+     * the lattice goes on with its tic-tacs.
+     * When the changes are tracked, the snapshot takes them, as {@link #takeChanges()} does.
+     * @return an immutable snapshot of the lattice.
+     */
+    public LatticeSnapshot snapshot() {
+        int words = wordsPerRow();
+        long[] occupied = new long[rows * words];
+        long[] active = new long[rows * words];
+        List<Long> positions = new ArrayList<>();
+        List<Thing> others = new ArrayList<>();
+        if (packed != null) {
+            // Keep the Things in row-major order, as the object lattice lists them
+            Map<Long, Thing> objects = new TreeMap<>(packed.picture(occupied, active));
+            for (Map.Entry<Long, Thing> entry : objects.entrySet()) {
+                if (!(entry.getValue() instanceof OriginalCell)) {
+                    positions.add(entry.getKey());
+                    others.add(entry.getValue());
+                }
+            }
+        } else {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    Thing thing = lattice[r][c];
+                    if (thing != null) {
+                        occupied[r * words + (c >>> 6)] |= 1L << c;
+                        if (thing.isActive()) {
+                            active[r * words + (c >>> 6)] |= 1L << c;
+                        }
+                        if (!(thing instanceof OriginalCell)) {
+                            positions.add((long) r * columns + c);
+                            others.add(thing);
+                        }
+                    }
+                }
+            }
+        }
+        int n = others.size();
+        int[] thingRows = new int[n], thingColumns = new int[n], thingColors = new int[n], thingShapes = new int[n];
+        boolean[] thingActive = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Thing thing = others.get(i);
+            thingRows[i] = (int) (positions.get(i) / columns);
+            thingColumns[i] = (int) (positions.get(i) % columns);
+            thingColors[i] = thing.getColor().getRGB();
+            thingShapes[i] = thing.shape();
+            thingActive[i] = thing.isActive();
+        }
+        return new LatticeSnapshot(rows, columns, generation, occupied, active, thingRows, thingColumns, thingColors, thingShapes, thingActive,
+                                   trackingChanges ? takeChanges() : null);
+    }
+
+    /**
+     * Counts the active Things of the 3x3 neighbourhood of a position, including the position itself.
+     * While the object Things decide, the count is read from the padded squares without bounds checks.
+     * @param r the row index.
+     * @param c the column index.
+     * @return the number of active Things around the position.
+     */
+    int activeAround(int r, int c) {
+        if (readingCounts) {
+            return neighborCounts[(r + 1) * (columns + 2) + c + 1] & COUNT_MASK;
+        }
+        if (readingActivity) {
+            int width = columns + 2;
+            int i = (r + 1) * width + c + 1;
+            byte[] s = squares;
+            return (s[i - width - 1] & ACTIVE_SQUARE) + (s[i - width] & ACTIVE_SQUARE) + (s[i - width + 1] & ACTIVE_SQUARE)
+                 + (s[i - 1] & ACTIVE_SQUARE) + (s[i] & ACTIVE_SQUARE) + (s[i + 1] & ACTIVE_SQUARE)
+                 + (s[i + width - 1] & ACTIVE_SQUARE) + (s[i + width] & ACTIVE_SQUARE) + (s[i + width + 1] & ACTIVE_SQUARE);
+        }
+        int count = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int nr = haloRow(r + dr), nc = haloColumn(c + dc);
+                if (nr >= 0 && nc >= 0 && isActive(nr, nc)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets whether the object lattice keeps the number of active Things around every square, updated only where the
+     * activity changes, so that deciding an original cell reads one count instead of its nine squares.
+     * The counts follow the Things placed, moved and removed with {@link #setThing}, the cells that change their
+     * state in a tic-tac and the original cells changed with {@link OriginalCell#changeState}.
+     * A {@code PACKED} lattice already counts the neighbours of 64 cells at a time, so it does not keep counts.
+     * The counts are only kept with {@code BOUNDED} edges.
+     * @param counting {@code true} to keep the counts, {@code false} to count the squares every time.
+     * @throws IllegalStateException if the counts are kept on a lattice that does not have {@code OBJECTS} storage,
+     * or whose edges are not {@code BOUNDED}.
+     */
+    public void setCountingNeighbors(boolean counting) {
+        if (packed != null) {
+            if (counting) {
+                throw new IllegalStateException("Only an OBJECTS lattice keeps neighbour counts");
+            }
+            return;
+        }
+        if (counting && boundary != BOUNDED) {
+            throw new IllegalStateException("The neighbour counts are only kept with BOUNDED edges");
+        }
+        if (!counting) {
+            neighborCounts = null;
+            staleCounts = null;
+            restless = null;
+            visits = null;
+        } else if (neighborCounts == null) {
+            int words = wordsPerRow();
+            neighborCounts = new byte[(rows + 2) * (columns + 2)];
+            staleCounts = new long[rows * words];
+            restless = new long[rows * words];
+            visits = new long[rows * words];
+            countedCells = 0;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    recount(r, c);
+                    Thing thing = lattice[r][c];
+                    if (thing != null && !isSteady(thing)) {
+                        restless[r * words + (c >>> 6)] |= 1L << c;
+                    }
+                }
+                // The states were not decided from these counts, so the first tic-tac visits every square
+                for (int w = 0; w < words; w++) {
+                    staleCounts[r * words + w] = PackedLattice.mask(w, 0, columns - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tic-tacs performed on the object lattice, up to which the steps of the original cells are counted.
+     * @return the number of tic-tacs.
+     */
+    long objectTicTacs() {
+        return objectTicTacs;
+    }
+
+    /**
+     * Checks whether the object lattice keeps the number of active Things around every square.
+     * @return {@code true} if the neighbour counts are kept.
+     */
+    public boolean isCountingNeighbors() {
+        return neighborCounts != null;
+    }
+
+    /**
+     * Tells that the activity of the Thing at a position may have changed, so that the neighbour counts are updated
+     * before the next decide phase and the position is recorded as changed. Safe to call from the band of the row
+     * of the position.
+     * @param r the row index.
+     * @param c the column index.
+     */
+    void activityChanged(int r, int c) {
+        if (staleCounts != null) {
+            staleCounts[r * wordsPerRow() + (c >>> 6)] |= 1L << c;
+        }
+        if (changes != null) {
+            changes[r * wordsPerRow() + (c >>> 6)] |= 1L << c;
+        }
+    }
+
+    /**
+     * Updates the neighbour counts around the positions whose activity may have changed.
+     * @param keep whether the positions stay stale afterwards.
+     */
+    private void refreshCounts(boolean keep) {
+        int words = wordsPerRow();
+        for (int i = 0; i < staleCounts.length; i++) {
+            for (long bits = staleCounts[i]; bits != 0; bits &= bits - 1) {
+                recount(i / words, ((i % words) << 6) + Long.numberOfTrailingZeros(bits));
+            }
+            if (!keep) {
+                staleCounts[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Updates the neighbour counts around a position if the activity of its Thing is not the one counted.
+     * @param r the row index.
+     * @param c the column index.
+     */
+    private void recount(int r, int c) {
+        int width = columns + 2;
+        int i = (r + 1) * width + c + 1;
+        Thing thing = lattice[r][c];
+        boolean active = (thing != null && thing.isActive());
+        byte[] n = neighborCounts;
+        if ((active && thing instanceof Cell) != ((n[i] & COUNTED_CELL) != 0)) {
+            countedCells += ((n[i] & COUNTED_CELL) != 0 ? -1 : 1);
+            n[i] ^= COUNTED_CELL;
+        }
+        if (active == ((n[i] & COUNTED_ACTIVE) != 0)) {
+            return;
+        }
+        int delta = (active ? 1 : -1);
+        n[i - width - 1] += delta;
+        n[i - width] += delta;
+        n[i - width + 1] += delta;
+        n[i - 1] += delta;
+        n[i] += delta;
+        n[i + 1] += delta;
+        n[i + width - 1] += delta;
+        n[i + width] += delta;
+        n[i + width + 1] += delta;
+        n[i] ^= COUNTED_ACTIVE;
+    }
+
+    /**
+     * Checks if a position holds or is next to a StickyWall, with a single lookup in the wall index.
+     * @param r the row index.
+     * @param c the column index.
+     * @return {@code true} if there is a StickyWall in the 3x3 neighbourhood of the position.
+     */
+    boolean nearStickyWall(int r, int c) {
+        return wallIndex != null && wallIndex.isNear(r, c);
+    }
+
+    /**
+     * Returns the data shared by the cells of a type in this lattice.
+     * @param type the type of cell, as CellKind.PLAIN, ORIGINAL, TOURIST or REFLECTIVE.
+     * @return the kind of the cells of that type.
+     */
+    CellKind cellKind(int type) {
+        return cellKinds[type];
+    }
+
+    /**
+     * Returns the index of the sticky walls.
+     * @return the index, or null if no wall was ever placed since the pattern was initialized.
+     */
+    WallIndex wallIndex() {
+        return wallIndex;
+    }
+
+    /**
+     * Lets the Things of the given rows decide their next state.
+     * @param from the first row.
+     * @param to the row after the last one.
+     */
+    private void decideRows(int from, int to) {
+        for (int r = from; r < to; r++) {
+            for (int c = 0; c < columns; c++) {
+                Thing thing = lattice[r][c];
+                if (thing != null) {
+                    thing.decide();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets the Things of the given rows change their state.
+     * @param from the first row.
+     * @param to the row after the last one.
+     */
+    private void changeRows(int from, int to) {
+        for (int r = from; r < to; r++) {
+            for (int c = 0; c < columns; c++) {
+                Thing thing = lattice[r][c];
+                if (thing != null) {
+                    thing.change();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets the Things of the given rows decide their next state, and adds them by type to the metrics.
+     * @param from the first row.
+     * @param to the row after the last one.
+     */
+    private void decideCountedRows(int from, int to) {
+        long[] counts = new long[6];
+        for (int r = from; r < to; r++) {
+            for (int c = 0; c < columns; c++) {
+                Thing thing = lattice[r][c];
+                if (thing != null) {
+                    thing.decide();
+                    count(thing, counts);
+                }
+            }
+        }
+        metrics.addEvaluated(counts[0], counts[1], counts[2], counts[3], counts[4], counts[5]);
+    }
+
+    /**
+     * Lets the Things of the given rows change their state, and adds the cells left active to the metrics.
+     * A cell that moves ahead is changed again where it lands, so it is only counted there.
+     * @param from the first row.
+     * @param to the row after the last one.
+     */
+    private void changeCountedRows(int from, int to) {
+        long active = 0;
+        for (int r = from; r < to; r++) {
+            for (int c = 0; c < columns; c++) {
+                Thing thing = lattice[r][c];
+                if (thing != null) {
+                    thing.change();
+                    if (thing instanceof Cell && thing.isActive()) {
+                        Cell cell = (Cell) thing;
+                        boolean ahead = (cell.getRow() > r || (cell.getRow() == r && cell.getColumn() > c));
+                        active += (ahead ? 0 : 1);
+                    }
+                }
+            }
+        }
+        metrics.addActive(active);
+    }
+
+    /**
+     * Lets the Things visited in the given rows decide their next state, adding them by type to the metrics if taken.
+     * @param from the first row.
+     * @param to the row after the last one.
+     */
+    private void decideVisits(int from, int to) {
+        int words = wordsPerRow();
+        long[] counts = (TicTacMetrics.AVAILABLE && metrics != null ? new long[6] : null);
+        for (int r = from; r < to; r++) {
+            for (int w = 0; w < words; w++) {
+                for (long bits = visits[r * words + w]; bits != 0; bits &= bits - 1) {
+                    Thing thing = lattice[r][(w << 6) + Long.numberOfTrailingZeros(bits)];
+                    if (thing != null) {
+                        thing.decide();
+                        if (counts != null) {
+                            count(thing, counts);
+                        }
+                    }
+                }
+            }
+        }
+        if (counts != null) {
+            metrics.addEvaluated(counts[0], counts[1], counts[2], counts[3], counts[4], counts[5]);
+        }
+    }
+
+    /**
+     * Lets the Things visited in the given rows change their state. When the changes are tracked, the positions whose
+     * activity changed are recorded, and those of the Poison, which changes its color every tic-tac.
+     * @param from the first row.
+     * @param to the row after the last one.
+     */
+    private void changeVisits(int from, int to) {
+        int words = wordsPerRow();
+        for (int r = from; r < to; r++) {
+            for (int w = 0; w < words; w++) {
+                int i = r * words + w;
+                for (long bits = visits[i]; bits != 0; bits &= bits - 1) {
+                    int c = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    Thing thing = lattice[r][c];
+                    if (thing != null) {
+                        thing.change();
+                        if (changes != null && thing instanceof Poison) {
+                            changes[i] |= 1L << c;
+                        }
+                    }
+                }
+                if (changes != null) {
+                    changes[i] |= staleCounts[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * A move proposed by a cell during a tic-tac by intents.
+     */
+    private static class Move {
+        private final Cell cell; //The cell that wants to move
+        private final int fromRow, fromColumn; //The position of the cell when it proposed the move
+        private final int toRow, toColumn; //The position the cell wants to move to
+
+        /**
+         * Creates the move of a cell from its current position to the given one.
+         */
+        Move(Cell cell, int toRow, int toColumn) {
+            this.cell = cell;
+            this.fromRow = cell.row;
+            this.fromColumn = cell.column;
+            this.toRow = toRow;
+            this.toColumn = toColumn;
         }
     }
-}
\ No newline at end of file
+}
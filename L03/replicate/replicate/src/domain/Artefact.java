@@ -34,10 +34,18 @@ public abstract class Artefact {
      * Returns the number of steps taken by the Artefact.
      * @return The number of steps.
      */   
-    public final int getSteps() {
+    public int getSteps() {
         return steps;
     }
 
+    /**
+     * Sets the number of steps taken by the Artefact, as when it is restored from a file.
+     * @param steps The number of steps.
+     */
+    void setSteps(int steps) {
+        this.steps = steps;
+    }
+
     /**
      * Checks if the Artefact is in an active state.
      * @return {@code true} if the Artefact is ACTIVE, {@code false} otherwise.
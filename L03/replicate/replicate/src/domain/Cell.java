@@ -5,7 +5,10 @@ import java.awt.Color;
 /**
  * Information about a cell in the manufacturing lattice.
  * <br>
- * <b>(aManufacturing, row, column, age, state, nextState, color)</b>
+ * <b>(kind, row, column, age, state, nextActive, isStuck)</b>
+ * <br>
+ * What every cell of a type shares, its lattice, colors and shape, lives in its {@link CellKind}, so a cell only
+ * carries its own position and state.
  *
  * @author Andersson David Sánchez Méndez
  * @author Cristian Santiago Pedraza Rodríguez
@@ -13,10 +16,9 @@ import java.awt.Color;
  */
 
 public class Cell extends Artefact implements Thing {
-    protected char nextState; //The next state of the cell, either ACTIVE or INACTIVE
-    protected Color color; //The color representing the cell
-    protected AManufacturing aManufacturing; //Reference to the manufacturing environment that the cell resides in
+    final CellKind kind; //The data shared by the cells of the same type and lattice
     protected int row, column; //The position of the cell within the lattice (row and column)
+    protected boolean nextActive; //Whether the cell will be active after the change
     protected boolean isStuck = false;  //Indicates whether the cell is stuck, which occurs when it is adjacent to a StickyWall
     
     /**
@@ -27,13 +29,31 @@ public class Cell extends Artefact implements Thing {
      * @param active The initial state of the cell, active or inactive.
      */
     public Cell(AManufacturing am, int row, int column, boolean active) {
-        this.aManufacturing = am;
+        this(am.cellKind(CellKind.PLAIN), row, column, active);
+        place();
+    }
+
+    /**
+     * Creates a new cell of the given kind for the specified row and column of the lattice of the kind,
+     * without placing it there yet.
+     * @param kind The kind of the cell.
+     * @param row The row index of the cell.
+     * @param column The column index of the cell.
+     * @param active The initial state of the cell, active or inactive.
+     */
+    Cell(CellKind kind, int row, int column, boolean active) {
+        this.kind = kind;
         this.row = row;
         this.column = column;
         state = (active ? Artefact.ACTIVE : Artefact.INACTIVE);
-        nextState = (active ? Artefact.ACTIVE : Artefact.INACTIVE);
-        aManufacturing.setThing(row, column, (Thing) this);
-        color = Color.black;
+        nextActive = active;
+    }
+
+    /**
+     * Places the cell at its position in its lattice, once it is fully constructed.
+     */
+    final void place() {
+        kind.aManufacturing.setThing(row, column, (Thing) this);
     }
 
     /**
@@ -57,14 +77,23 @@ public class Cell extends Artefact implements Thing {
      * @return The color of the cell.
      */
     public Color getColor() {
-        return color;
+        return kind.colorOf(isActive());
+    }
+
+    /**
+     * Returns the shape of the cell, shared by the cells of its kind.
+     * @return The shape of the cell.
+     */
+    @Override
+    public int shape() {
+        return kind.shape();
     }
 
     /**
      * Decides the next state of the cell based on a given rule.
      */
     public void decide() {
-        nextState = (getSteps() % 2 == 0 ? Artefact.ACTIVE : Artefact.INACTIVE);
+        nextActive = (getSteps() % 2 == 0);
     }
 
     /**
@@ -72,11 +101,15 @@ public class Cell extends Artefact implements Thing {
      */
     public void change() {
         step();
-        state = nextState;
+        if (kind.aManufacturing.isCountingNeighbors() && isActive() != nextActive) {
+            kind.aManufacturing.activityChanged(row, column);
+        }
+        state = (nextActive ? Artefact.ACTIVE : Artefact.INACTIVE);
         
         // Check if the cell is adjacent to a StickyWall or is on top of one
         if (!isStuck && isAdjacentToStickyWall()) {
             isStuck = true;
+            kind.aManufacturing.becameStuck(row, column);
         }
 
         // If the cell is stuck, it stays in place
@@ -93,35 +126,35 @@ public class Cell extends Artefact implements Thing {
      * @return True if the cell is adjacent to a StickyWall, false otherwise.
      */
     private boolean isAdjacentToStickyWall() {
-        // Check the current position
-        Thing currentThing = aManufacturing.getThing(row, column);
-        if (currentThing instanceof StickyWall) {
-            return true;
-        }
-
-        // Check adjacent positions
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-                int newRow = row + dr;
-                int newCol = column + dc;
-                if (aManufacturing.inLatice(newRow, newCol)) {
-                    Thing adjacentThing = aManufacturing.getThing(newRow, newCol);
-                    if (adjacentThing instanceof StickyWall) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return kind.aManufacturing.nearStickyWall(row, column);
     }
     
+    /**
+     * Moves the cell to the given position of its manufacturing lattice.
+     * When the lattice moves Things by intents, the move is only proposed here and takes place
+     * once every Thing has decided, unless another Thing wins the same position.
+     * @param newRow The row to move to.
+     * @param newColumn The column to move to.
+     * @return {@code true} if the cell has moved, {@code false} if the move was only proposed.
+     */
+    protected boolean moveTo(int newRow, int newColumn) {
+        return kind.aManufacturing.move(this, newRow, newColumn);
+    }
+
+    /**
+     * Reacts to a proposed move that lost the position against another Thing.
+     * By default the cell just stays where it is.
+     */
+    protected void moveBlocked() {
+        // The cell stays in place
+    }
+
     /**
      * Counts the number of active neighboring cells around this cell.
      * @return The number of active neighboring cells.
      */
     public int neighborsActive() {
-        return aManufacturing.neighborsActive(row, column);
+        return kind.aManufacturing.neighborsActive(row, column);
     }
 
     /**
@@ -131,7 +164,7 @@ public class Cell extends Artefact implements Thing {
      * @return {@code true} if the neighboring position is empty, {@code false} otherwise.
      */
     public boolean neighborIsEmpty(int dr, int dc) {
-        return aManufacturing.isEmpty(row + dr, column + dc);
+        return kind.aManufacturing.isEmpty(row + dr, column + dc);
     }
     
     /**
@@ -0,0 +1,63 @@
+package domain;
+
+import java.awt.Color;
+
+/**
+ * The data shared by every cell of a type in a lattice: the lattice itself, the colors of the type and its shape.
+ * A lattice creates one CellKind per type of cell, and its cells point to it instead of keeping their own copies,
+ * so a cell only carries its position, its state and its steps. The rule of a type is the decide method of its class.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class CellKind {
+    /** The types of cells, as indexes of the kinds of a lattice */
+    static final int PLAIN = 0, ORIGINAL = 1, TOURIST = 2, REFLECTIVE = 3;
+
+    final AManufacturing aManufacturing; //The manufacturing environment the cells of this kind reside in
+    private final Color activeColor, inactiveColor; //The colors of the active and the inactive cells
+    private final int shape; //The shape of the cells, Thing.ROUND or Thing.SQUARE
+
+    /**
+     * Creates the kind of a type of cells.
+     */
+    private CellKind(AManufacturing am, Color activeColor, Color inactiveColor, int shape) {
+        this.aManufacturing = am;
+        this.activeColor = activeColor;
+        this.inactiveColor = inactiveColor;
+        this.shape = shape;
+    }
+
+    /**
+     * Creates the kinds of every type of cell of a lattice.
+     * @param am The manufacturing environment of the cells.
+     * @return the kinds, indexed by PLAIN, ORIGINAL, TOURIST and REFLECTIVE.
+     */
+    static CellKind[] kindsOf(AManufacturing am) {
+        CellKind[] kinds = new CellKind[4];
+        kinds[PLAIN] = new CellKind(am, Color.BLACK, Color.BLACK, Thing.SQUARE);
+        kinds[ORIGINAL] = new CellKind(am, Color.GRAY, Color.GRAY, Thing.SQUARE);
+        kinds[TOURIST] = new CellKind(am, Color.ORANGE, Color.YELLOW, Thing.SQUARE);
+        kinds[REFLECTIVE] = new CellKind(am, Color.GREEN, Color.GRAY, Thing.SQUARE);
+        return kinds;
+    }
+
+    /**
+     * Returns the color of a cell of this kind.
+     * @param active Whether the cell is active.
+     * @return the color of the cell.
+     */
+    Color colorOf(boolean active) {
+        return (active ? activeColor : inactiveColor);
+    }
+
+    /**
+     * Returns the shape of the cells of this kind.
+     * @return Thing.ROUND or Thing.SQUARE.
+     */
+    int shape() {
+        return shape;
+    }
+}
@@ -0,0 +1,471 @@
+package domain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Saves and loads the whole state of an AManufacturing in a compact binary file, through a memory-mapped FileChannel.
+ * <br>
+ * Version 2 of the format, little-endian:
+ * <ul>
+ * <li>A header: the magic number {@code AMNF}, the version, the rows, the columns, the generation, the common steps
+ * of the original cells that are not stuck, and the seed of the random choices of the Things.</li>
+ * <li>Three row-major bit planes of the original cells, one 64-bit word per 64 columns of a row:
+ * their presence, their state and their stuck flag.</li>
+ * <li>The length in bytes of the rest, then the step exceptions: the original cells whose steps are not the common
+ * steps (twice them once stuck), as varint position deltas and zigzag varint differences.</li>
+ * <li>The other Things in row-major order, as varint position deltas, a varint run of consecutive squares held by the
+ * same Thing (a sticky wall spans a row) and a type byte followed by the fields of that type: the state and stuck
+ * flags and the steps of the cells, the direction of the reflective cells and the color index of the poison.</li>
+ * </ul>
+ * Only the planes grow with the lattice, and they are copied a whole array at a time.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class LatticeFile {
+    private static final int MAGIC = 0x464E4D41; // "AMNF" read as little-endian
+    private static final int VERSION = 2;
+    private static final int HEADER = 40;
+    static final byte CELL = 1, REFLECTIVE = 2, TOURIST = 3, POISON = 4, STICKY_WALL = 5;
+    static final int ACTIVE_FLAG = 1, STUCK_FLAG = 2;
+
+    private LatticeFile() {
+    }
+
+    /**
+     * Saves the state of a lattice.
+     * @param am The lattice, which must not be performing a tic-tac.
+     * @param file The file to write, replaced if it exists.
+     * @throws IOException if the file cannot be written or holds a Thing that cannot be saved.
+     */
+    static void save(AManufacturing am, Path file) throws IOException {
+        int rows = am.getRows(), columns = am.getColumns(), words = (columns + 63) >>> 6;
+        long planeWords = (long) rows * words;
+        PackedLattice packed = am.packedLattice();
+        long base = (packed != null ? packed.getTicTacs() : am.getGeneration());
+        long[][] planes = null; //The planes of the object lattice, or null when the packed planes are written
+        Map<Long, Long> exceptions = new TreeMap<>();
+        Map<Long, Thing> others = new TreeMap<>();
+        Map<Long, OriginalCell> originals = new TreeMap<>(); //The original cells kept as objects in a packed lattice
+
+        if (packed != null) {
+            for (Map.Entry<Long, Integer> entry : packed.getOffsets().entrySet()) {
+                exceptions.put(entry.getKey(), (long) entry.getValue());
+            }
+            for (Map.Entry<Long, Thing> entry : packed.getObjects().entrySet()) {
+                if (entry.getValue() instanceof OriginalCell) {
+                    originals.put(entry.getKey(), (OriginalCell) entry.getValue());
+                } else {
+                    others.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } else {
+            planes = new long[3][(int) planeWords];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    Thing thing = am.getThing(r, c);
+                    long key = (long) r * columns + c;
+                    if (thing instanceof OriginalCell) {
+                        originals.put(key, (OriginalCell) thing);
+                    } else if (thing != null) {
+                        others.put(key, thing);
+                    }
+                }
+            }
+        }
+        long[] patches = new long[originals.size() * 2]; //The words of the planes changed by the original objects
+        int patched = 0;
+        for (Map.Entry<Long, OriginalCell> entry : originals.entrySet()) {
+            OriginalCell cell = entry.getValue();
+            int r = (int) (entry.getKey() / columns), c = (int) (entry.getKey() % columns);
+            long difference = cell.getSteps() - base * (cell.getIsStuck() ? 2 : 1);
+            if (difference != 0) {
+                exceptions.put(entry.getKey(), difference);
+            }
+            int i = r * words + (c >>> 6);
+            long bit = 1L << c;
+            if (planes != null) {
+                planes[0][i] |= bit;
+                planes[1][i] |= (cell.isActive() ? bit : 0);
+                planes[2][i] |= (cell.getIsStuck() ? bit : 0);
+            } else {
+                patches[patched++] = i;
+                patches[patched++] = (cell.isActive() ? ACTIVE_FLAG : 0) | (cell.getIsStuck() ? STUCK_FLAG : 0) | ((long) (c & 63) << 8);
+            }
+        }
+
+        Bytes rest = new Bytes();
+        rest.varint(exceptions.size());
+        long previous = 0;
+        for (Map.Entry<Long, Long> entry : exceptions.entrySet()) {
+            rest.varint(entry.getKey() - previous);
+            rest.zigzag(entry.getValue());
+            previous = entry.getKey();
+        }
+        writeThings(others, rest);
+
+        long size = HEADER + 3 * planeWords * 8 + 8 + rest.size;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The lattice is too large to be saved in one mapping: " + rows + "x" + columns);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).putLong(am.getGeneration()).putLong(base).putLong(am.getSeed());
+            LongBuffer words64 = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            if (planes != null) {
+                words64.put(planes[0]).put(planes[1]).put(planes[2]);
+            } else {
+                packed.writePlanes(words64);
+                for (int k = 0; k < patched; k += 2) {
+                    int i = (int) patches[k];
+                    long bit = 1L << (patches[k + 1] >>> 8);
+                    words64.put(i, words64.get(i) | bit);
+                    if ((patches[k + 1] & ACTIVE_FLAG) != 0) {
+                        words64.put((int) planeWords + i, words64.get((int) planeWords + i) | bit);
+                    }
+                    if ((patches[k + 1] & STUCK_FLAG) != 0) {
+                        words64.put(2 * (int) planeWords + i, words64.get(2 * (int) planeWords + i) | bit);
+                    }
+                }
+            }
+            buffer.position((int) (HEADER + 3 * planeWords * 8));
+            buffer.putLong(rest.size);
+            buffer.put(rest.data, 0, rest.size);
+        }
+    }
+
+    /**
+     * Writes the Things that are not original cells, with a run for the consecutive squares of the same Thing.
+     */
+    private static void writeThings(Map<Long, Thing> others, Bytes out) throws IOException {
+        int runs = 0;
+        long end = -1;
+        Thing last = null;
+        for (Map.Entry<Long, Thing> entry : others.entrySet()) {
+            if (entry.getValue() != last || entry.getKey() != end) {
+                runs++;
+            }
+            last = entry.getValue();
+            end = entry.getKey() + 1;
+        }
+        out.varint(runs);
+        long previous = 0;
+        Long start = null;
+        int run = 0;
+        last = null;
+        for (Map.Entry<Long, Thing> entry : others.entrySet()) {
+            if (start != null && entry.getValue() == last && entry.getKey() == start + run) {
+                run++;
+                continue;
+            }
+            if (start != null) {
+                writeThing(last, start - previous, run, out);
+                previous = start;
+            }
+            start = entry.getKey();
+            last = entry.getValue();
+            run = 1;
+        }
+        if (start != null) {
+            writeThing(last, start - previous, run, out);
+        }
+    }
+
+    /**
+     * Writes one run of squares held by the same Thing.
+     */
+    private static void writeThing(Thing thing, long delta, int run, Bytes out) throws IOException {
+        out.varint(delta);
+        out.varint(run);
+        writeFields(thing, out);
+    }
+
+    /**
+     * Writes the type and the fields of a Thing that is not an original cell.
+     * @throws IOException if the Thing is of a type that cannot be saved.
+     */
+    static void writeFields(Thing thing, Bytes out) throws IOException {
+        Class<?> type = thing.getClass();
+        if (type == StickyWall.class) {
+            out.put(STICKY_WALL);
+        } else if (type == Poison.class) {
+            out.put(POISON);
+            out.put((byte) ((Poison) thing).getColorIndex());
+        } else if (type == Cell.class || type == ReflectiveCell.class || type == TouristCell.class) {
+            Cell cell = (Cell) thing;
+            out.put(type == Cell.class ? CELL : type == ReflectiveCell.class ? REFLECTIVE : TOURIST);
+            out.put((byte) ((cell.isActive() ? ACTIVE_FLAG : 0) | (cell.getIsStuck() ? STUCK_FLAG : 0)));
+            out.varint(cell.getSteps());
+            if (type == ReflectiveCell.class) {
+                out.put((byte) (((ReflectiveCell) cell).getDirectionRow() + 1));
+                out.put((byte) (((ReflectiveCell) cell).getDirectionColumn() + 1));
+            }
+        } else {
+            throw new IOException("Cannot save a Thing of " + type.getName());
+        }
+    }
+
+    /**
+     * Loads a lattice saved by {@link #save}.
+     * @param file The file to read.
+     * @param storage The storage of the new lattice, {@code OBJECTS} or {@code PACKED}.
+     * @return The lattice as it was saved.
+     * @throws IOException if the file cannot be read or is not a saved lattice.
+     */
+    static AManufacturing load(Path file, int storage) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER) {
+                throw new IOException("Not a saved lattice: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a saved lattice: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of " + file);
+            }
+            int rows = buffer.getInt(), columns = buffer.getInt();
+            long generation = buffer.getLong(), base = buffer.getLong(), seed = buffer.getLong();
+            if (rows <= 0 || columns <= 0 || generation < 0 || base < 0 || base > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt header in " + file);
+            }
+            int words = (columns + 63) >>> 6;
+            long planeWords = (long) rows * words;
+            long restStart = HEADER + 3 * planeWords * 8;
+            if (size < restStart + 8) {
+                throw new IOException("Truncated file " + file);
+            }
+
+            // The variable part first: the sticky walls must be in place before the planes
+            buffer.position((int) restStart);
+            long restSize = buffer.getLong();
+            if (restSize < 0 || restStart + 8 + restSize > size) {
+                throw new IOException("Truncated file " + file);
+            }
+            Map<Long, Long> exceptions = new HashMap<>();
+            long key = 0;
+            for (long n = readVarint(buffer); n > 0; n--) {
+                key += readVarint(buffer);
+                exceptions.put(key, readZigzag(buffer));
+            }
+            int runs = (int) readVarint(buffer);
+            long[] starts = new long[runs];
+            int[] lengths = new int[runs];
+            int[] positions = new int[runs]; //Where the fields of every run start in the buffer
+            key = 0;
+            for (int k = 0; k < runs; k++) {
+                key += readVarint(buffer);
+                starts[k] = key;
+                lengths[k] = (int) readVarint(buffer);
+                positions[k] = buffer.position();
+                skipThing(buffer);
+            }
+
+            AManufacturing am = new AManufacturing(rows, columns, storage);
+            Set<Long> walls = new HashSet<>();
+            for (int k = 0; k < runs; k++) {
+                if (buffer.get(positions[k]) == STICKY_WALL) {
+                    for (int j = 0; j < lengths[k]; j++) {
+                        walls.add(starts[k] + j);
+                    }
+                    // A run of wall squares is rebuilt as one wall per row it covers
+                    for (long from = starts[k], end = starts[k] + lengths[k]; from < end; ) {
+                        int r = (int) (from / columns);
+                        long to = Math.min(end, (long) (r + 1) * columns);
+                        new StickyWall(am, r, (int) (from % columns), r, (int) ((to - 1) % columns));
+                        from = to;
+                    }
+                }
+            }
+
+            LongBuffer words64 = buffer.position(HEADER).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            PackedLattice packed = am.packedLattice();
+            if (packed != null) {
+                Map<Long, Integer> offsets = new HashMap<>();
+                for (Map.Entry<Long, Long> entry : exceptions.entrySet()) {
+                    offsets.put(entry.getKey(), (int) (long) entry.getValue());
+                }
+                packed.readPlanes(words64, (int) base, offsets);
+            } else {
+                readOriginals(am, words64, planeWords, base, exceptions, walls);
+            }
+            for (int k = 0; k < runs; k++) {
+                buffer.position(positions[k]);
+                readThing(am, buffer, (int) (starts[k] / columns), (int) (starts[k] % columns));
+            }
+            am.setGeneration(generation);
+            am.setSeed(seed);
+            return am;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt file " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Places the original cells of the planes in an object lattice, and empties the other squares but the walls.
+     */
+    private static void readOriginals(AManufacturing am, LongBuffer in, long planeWords, long base,
+                                      Map<Long, Long> exceptions, Set<Long> walls) {
+        long[] present = new long[(int) planeWords], state = new long[(int) planeWords], stuck = new long[(int) planeWords];
+        in.get(present).get(state).get(stuck);
+        int rows = am.getRows(), columns = am.getColumns(), words = (columns + 63) >>> 6;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                long key = (long) r * columns + c;
+                int i = r * words + (c >>> 6);
+                long bit = 1L << c;
+                if ((present[i] & bit) == 0) {
+                    if (!walls.contains(key)) {
+                        am.setThing(r, c, null);
+                    }
+                    continue;
+                }
+                Thing thing = am.getThing(r, c);
+                OriginalCell cell = (thing != null && thing.getClass() == OriginalCell.class ? (OriginalCell) thing : new OriginalCell(am, r, c, false));
+                cell.changeState((state[i] & bit) != 0);
+                cell.isStuck = (stuck[i] & bit) != 0;
+                Long difference = exceptions.get(key);
+                cell.setSteps((int) (base * (cell.isStuck ? 2 : 1) + (difference == null ? 0 : difference)));
+            }
+        }
+    }
+
+    /**
+     * Skips the type and the fields of a Thing.
+     */
+    static void skipThing(ByteBuffer in) throws IOException {
+        byte type = in.get();
+        switch (type) {
+            case STICKY_WALL:
+                break;
+            case POISON:
+                in.get();
+                break;
+            case CELL: case TOURIST: case REFLECTIVE:
+                in.get();
+                readVarint(in);
+                if (type == REFLECTIVE) {
+                    in.get();
+                    in.get();
+                }
+                break;
+            default:
+                throw new IOException("Unknown type of Thing " + type);
+        }
+    }
+
+    /**
+     * Places the Thing whose type and fields come next in the buffer, unless it is a sticky wall, already placed.
+     */
+    static void readThing(AManufacturing am, ByteBuffer in, int r, int c) {
+        byte type = in.get();
+        if (type == STICKY_WALL) {
+            return;
+        }
+        if (type == POISON) {
+            Poison poison = new Poison();
+            poison.setColorIndex(in.get());
+            am.setThing(r, c, poison);
+            return;
+        }
+        int flags = in.get();
+        int steps = (int) readVarint(in);
+        boolean active = (flags & ACTIVE_FLAG) != 0;
+        Cell cell;
+        if (type == REFLECTIVE) {
+            ReflectiveCell reflective = new ReflectiveCell(am, r, c, active);
+            reflective.setDirection(in.get() - 1, in.get() - 1);
+            cell = reflective;
+        } else if (type == TOURIST) {
+            cell = new TouristCell(am, r, c, active);
+        } else {
+            cell = new Cell(am, r, c, active);
+        }
+        cell.isStuck = (flags & STUCK_FLAG) != 0;
+        cell.setSteps(steps);
+    }
+
+    /**
+     * Reads an unsigned varint: seven bits per byte, the lowest first, with the high bit set on all but the last byte.
+     */
+    static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Reads a signed varint written in zigzag order.
+     */
+    static long readZigzag(ByteBuffer in) {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * A growing array of bytes for the variable part of the file.
+     */
+    static final class Bytes {
+        byte[] data = new byte[256]; //The bytes written
+        int size; //The number of bytes written
+
+        /**
+         * Forgets the bytes written, keeping the array.
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Writes a byte.
+         */
+        void put(byte b) {
+            if (size == data.length) {
+                data = java.util.Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = b;
+        }
+
+        /**
+         * Writes an unsigned varint.
+         */
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            put((byte) value);
+        }
+
+        /**
+         * Writes a signed varint in zigzag order, so that small negative values stay short.
+         */
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+    }
+}
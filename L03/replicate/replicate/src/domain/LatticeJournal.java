@@ -0,0 +1,430 @@
+package domain;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes and replays a journal of the changes of a lattice, one record per tic-tac or per leap of a packed lattice,
+ * so that a long run can be replayed, rewound or followed without saving the whole lattice every tic-tac.
+ * <br>
+ * Version 1 of the format, little-endian:
+ * <ul>
+ * <li>A header: the magic number {@code AMNJ}, the version, the rows, the columns and the generation the journal
+ * starts from.</li>
+ * <li>The records, each one as its length in bytes and then: the generation it leads to as a varint; the positions
+ * whose original cell stayed there and toggled its state, as varint position deltas; and the positions whose
+ * content changed otherwise, as varint position deltas followed by the content before and the content after.</li>
+ * <li>A content is a type byte: empty, an original cell followed by its state and stuck flags, or a Thing followed
+ * by its fields as in the files of {@link LatticeFile}.</li>
+ * </ul>
+ * A record compares what the previous record left with what there is now, only at the positions the lattice tracked
+ * as changed since then and at those of the Things other than original cells and walls, whose steps always change.
+ * So the changes made between two tic-tacs are written with the next tic-tac, and a leap is a single record whose
+ * intermediate generations cannot be replayed. Every record holds both contents of a changed position, so it can be
+ * undone.
+ * The steps of the original cells are not written: they follow from the generation.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class LatticeJournal implements Closeable {
+    private static final int MAGIC = 0x4A4E4D41; // "AMNJ" read as little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER = 24;
+    private static final byte EMPTY = 0, ORIGINAL = 6;
+
+    private final AManufacturing am; //The lattice written to the journal
+    private final FileChannel channel; //The file of the journal
+    private final int columns, words; //The columns of the lattice and the 64-bit words of a row
+    private final long[] planes; //The presence, state and stuck planes of the original cells at the last record
+    private final Map<Long, byte[]> others = new HashMap<>(); //The contents of the other Things at the last record
+    private final Set<Long> restless = new HashSet<>(); //The positions of the other Things but the walls, whose steps change every tic-tac
+    private final long[] pending; //The positions changed since the last record, one bit per position
+    private final LatticeFile.Bytes toggles = new LatticeFile.Bytes(); //The toggled positions of a record
+    private final LatticeFile.Bytes changes = new LatticeFile.Bytes(); //The changed positions of a record
+    private final LatticeFile.Bytes record = new LatticeFile.Bytes(); //The record being written
+    private final LatticeFile.Bytes fields = new LatticeFile.Bytes(); //The fields of a Thing being read
+    private final ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Starts the journal of a lattice, as it is now.
+     * @param am The lattice, which must not be performing a tic-tac.
+     * @param file The file of the journal, replaced if it exists.
+     * @throws IOException if the file cannot be written or the lattice holds a Thing that cannot be saved.
+     */
+    LatticeJournal(AManufacturing am, Path file) throws IOException {
+        this.am = am;
+        this.columns = am.getColumns();
+        this.words = (columns + 63) >>> 6;
+        int planeWords = am.getRows() * words;
+        this.planes = new long[3 * planeWords];
+        this.pending = new long[planeWords];
+        capture();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(am.getRows()).putInt(columns).putLong(am.getGeneration()).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    /**
+     * Adds the positions changed in the lattice to the ones the next record looks at.
+     * @param changed The changed positions, one bit per position, as the lattice tracks them.
+     */
+    void remember(long[] changed) {
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] |= changed[i];
+        }
+    }
+
+    /**
+     * Appends the record of the tic-tacs performed since the last record.
+     * @throws UncheckedIOException if the journal cannot be written.
+     */
+    void record() {
+        try {
+            write(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the changes made since the last tic-tac, if any, and closes the file.
+     * @throws IOException if the journal cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            write(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the whole lattice: its original cells into the planes and the contents of its other Things into the map.
+     */
+    private void capture() throws IOException {
+        PackedLattice packed = am.packedLattice();
+        if (packed != null) {
+            packed.writePlanes(LongBuffer.wrap(planes));
+            for (Map.Entry<Long, Thing> entry : packed.getObjects().entrySet()) {
+                capture(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        for (int r = 0; r < am.getRows(); r++) {
+            for (int c = 0; c < columns; c++) {
+                Thing thing = am.getThing(r, c);
+                if (thing != null) {
+                    capture((long) r * columns + c, thing);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one Thing of the lattice.
+     */
+    private void capture(long key, Thing thing) throws IOException {
+        if (thing instanceof OriginalCell) {
+            int planeWords = planes.length / 3;
+            int i = (int) (key / columns) * words + (int) (key % columns >>> 6);
+            long bit = 1L << key % columns;
+            planes[i] |= bit;
+            planes[planeWords + i] |= (thing.isActive() ? bit : 0);
+            planes[2 * planeWords + i] |= (((OriginalCell) thing).getIsStuck() ? bit : 0);
+        } else {
+            fields.clear();
+            LatticeFile.writeFields(thing, fields);
+            others.put(key, Arrays.copyOf(fields.data, fields.size));
+            if (!(thing instanceof StickyWall)) {
+                restless.add(key);
+            }
+        }
+    }
+
+    /**
+     * Writes the record of the differences between the last record and now at the positions changed since then,
+     * and at those of the restless Things, and keeps them as the last record.
+     * @param always Whether to write the record even when nothing changed.
+     */
+    private void write(boolean always) throws IOException {
+        int planeWords = planes.length / 3;
+        for (long key : restless) {
+            pending[(int) (key / columns) * words + (int) (key % columns >>> 6)] |= 1L << key % columns;
+        }
+        PackedLattice packed = am.packedLattice();
+        int toggled = 0, count = 0;
+        long previousToggle = 0, previousChange = 0;
+        toggles.clear();
+        changes.clear();
+        for (int i = 0; i < pending.length; i++) {
+            int r = i / words;
+            for (long bits = pending[i]; bits != 0; bits &= bits - 1) {
+                int c = ((i % words) << 6) + Long.numberOfTrailingZeros(bits);
+                long key = (long) r * columns + c;
+                long bit = 1L << c;
+                // A packed cell is read from its planes, without making a view of it
+                Thing thing = (packed != null && packed.isPacked(r, c) ? null : am.getThing(r, c));
+                boolean original = (thing == null ? packed != null && packed.isPacked(r, c) : thing instanceof OriginalCell);
+                boolean active = (thing == null ? original && packed.isActive(r, c) : thing.isActive());
+                boolean stuck = (thing == null ? original && packed.isStuck(r, c) : original && ((OriginalCell) thing).getIsStuck());
+                if (original && (planes[i] & bit) != 0 && stuck == ((planes[2 * planeWords + i] & bit) != 0)) {
+                    if (active != ((planes[planeWords + i] & bit) != 0)) {
+                        toggles.varint(key - previousToggle);
+                        previousToggle = key;
+                        toggled++;
+                        planes[planeWords + i] ^= bit;
+                    }
+                    continue;
+                }
+                int mark = changes.size;
+                changes.varint(key - previousChange);
+                int from = changes.size;
+                writeContent(key);
+                int to = changes.size;
+                if (original) {
+                    changes.put(ORIGINAL);
+                    changes.put((byte) ((active ? LatticeFile.ACTIVE_FLAG : 0) | (stuck ? LatticeFile.STUCK_FLAG : 0)));
+                } else if (thing == null) {
+                    changes.put(EMPTY);
+                } else {
+                    LatticeFile.writeFields(thing, changes);
+                }
+                if (Arrays.equals(changes.data, from, to, changes.data, to, changes.size)) {
+                    changes.size = mark; // The Thing is the same, or an equal one
+                    continue;
+                }
+                previousChange = key;
+                count++;
+                planes[i] = (original ? planes[i] | bit : planes[i] & ~bit);
+                planes[planeWords + i] = (active && original ? planes[planeWords + i] | bit : planes[planeWords + i] & ~bit);
+                planes[2 * planeWords + i] = (stuck ? planes[2 * planeWords + i] | bit : planes[2 * planeWords + i] & ~bit);
+                if (original || thing == null) {
+                    others.remove(key);
+                    restless.remove(key);
+                } else {
+                    byte[] content = others.get(key);
+                    if (content == null || content.length != changes.size - to) {
+                        content = new byte[changes.size - to];
+                        others.put(key, content);
+                    }
+                    System.arraycopy(changes.data, to, content, 0, content.length);
+                    if (thing instanceof StickyWall) {
+                        restless.remove(key);
+                    } else {
+                        restless.add(key);
+                    }
+                }
+            }
+            pending[i] = 0;
+        }
+
+        if (always || toggled > 0 || count > 0) {
+            record.clear();
+            record.varint(am.getGeneration());
+            record.varint(toggled);
+            append(toggles);
+            record.varint(count);
+            append(changes);
+            length.clear();
+            length.putInt(record.size).flip();
+            ByteBuffer[] buffers = {length, ByteBuffer.wrap(record.data, 0, record.size)};
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    /**
+     * Writes the content of a position as the last record left it.
+     */
+    private void writeContent(long key) {
+        byte[] thing = others.get(key);
+        if (thing != null) {
+            for (byte b : thing) {
+                changes.put(b);
+            }
+            return;
+        }
+        int planeWords = planes.length / 3;
+        int i = (int) (key / columns) * words + (int) (key % columns >>> 6);
+        long bit = 1L << key % columns;
+        if ((planes[i] & bit) == 0) {
+            changes.put(EMPTY);
+        } else {
+            changes.put(ORIGINAL);
+            changes.put((byte) (((planes[planeWords + i] & bit) != 0 ? LatticeFile.ACTIVE_FLAG : 0)
+                                | ((planes[2 * planeWords + i] & bit) != 0 ? LatticeFile.STUCK_FLAG : 0)));
+        }
+    }
+
+    /**
+     * Appends some bytes to the record.
+     */
+    private void append(LatticeFile.Bytes bytes) {
+        for (int k = 0; k < bytes.size; k++) {
+            record.put(bytes.data[k]);
+        }
+    }
+
+    /**
+     * Replays a journal forwards or backwards until the given generation.
+     * The lattice must be at a generation of the journal, and is assumed to hold what the journal says it held then.
+     * @param am The lattice, which must not be performing a tic-tac.
+     * @param file The journal.
+     * @param generation The generation to reach.
+     * @throws IOException if the file cannot be read or is not a journal of a lattice of that size.
+     * @throws IllegalArgumentException if the lattice or the generation to reach are not within the journal.
+     */
+    static void replay(AManufacturing am, Path file, long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER) {
+                throw new IOException("Not a journal: " + file);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("The journal is too large to be read in one mapping: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a journal: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of " + file);
+            }
+            if (buffer.getInt() != am.getRows() || buffer.getInt() != am.getColumns()) {
+                throw new IOException("The journal " + file + " is not of a " + am.getRows() + "x" + am.getColumns() + " lattice");
+            }
+            long start = buffer.getLong();
+
+            // Find where every record starts and the generation it leads to
+            List<Integer> positions = new ArrayList<>();
+            List<Long> generations = new ArrayList<>();
+            while (buffer.remaining() >= 4) {
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break; // A record cut short, as while the journal is written
+                }
+                positions.add(buffer.position());
+                generations.add(LatticeFile.readVarint(buffer));
+                buffer.position(positions.get(positions.size() - 1) + length);
+            }
+            long last = (generations.isEmpty() ? start : generations.get(generations.size() - 1));
+            long current = am.getGeneration();
+            if (current < start || current > last) {
+                throw new IllegalArgumentException("The lattice is at generation " + current + ", out of the journal [" + start + ", " + last + "]");
+            }
+            if (generation < start || generation > last) {
+                throw new IllegalArgumentException("The generation " + generation + " is out of the journal [" + start + ", " + last + "]");
+            }
+            if (generation != start && !generations.contains(generation)) {
+                throw new IllegalArgumentException("The generation " + generation + " is within a leap of the journal");
+            }
+
+            int applied = 0;
+            while (applied < generations.size() && generations.get(applied) <= current) {
+                applied++;
+            }
+            for (int k = applied; k < generations.size() && generations.get(k) <= generation; k++) {
+                apply(am, buffer.position(positions.get(k)), true);
+            }
+            for (int k = applied - 1; k >= 0 && generations.get(k) > generation; k--) {
+                apply(am, buffer.position(positions.get(k)), false);
+            }
+            am.setGeneration(generation);
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException) {
+                throw e;
+            }
+            throw new IOException("Corrupt journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies a record to the lattice, or undoes it.
+     * @param in The buffer at the start of the record.
+     * @param forwards {@code true} to apply the record, {@code false} to undo it.
+     */
+    private static void apply(AManufacturing am, ByteBuffer in, boolean forwards) throws IOException {
+        int columns = am.getColumns();
+        LatticeFile.readVarint(in);
+        long key = 0;
+        for (long n = LatticeFile.readVarint(in); n > 0; n--) {
+            key += LatticeFile.readVarint(in);
+            Thing thing = am.getThing((int) (key / columns), (int) (key % columns));
+            if (thing instanceof OriginalCell) {
+                ((OriginalCell) thing).changeState(!thing.isActive());
+            }
+        }
+        key = 0;
+        for (long n = LatticeFile.readVarint(in); n > 0; n--) {
+            key += LatticeFile.readVarint(in);
+            int r = (int) (key / columns), c = (int) (key % columns);
+            if (forwards) {
+                skipContent(in);
+                placeContent(am, in, r, c);
+            } else {
+                placeContent(am, in, r, c);
+                skipContent(in);
+            }
+        }
+    }
+
+    /**
+     * Skips a content.
+     */
+    private static void skipContent(ByteBuffer in) throws IOException {
+        byte type = in.get(in.position());
+        if (type == EMPTY) {
+            in.get();
+        } else if (type == ORIGINAL) {
+            in.get();
+            in.get();
+        } else {
+            LatticeFile.skipThing(in);
+        }
+    }
+
+    /**
+     * Places a content at the given position, replacing whatever is there.
+     */
+    private static void placeContent(AManufacturing am, ByteBuffer in, int r, int c) {
+        byte type = in.get(in.position());
+        if (type == EMPTY) {
+            in.get();
+            am.setThing(r, c, null);
+        } else if (type == ORIGINAL) {
+            in.get();
+            int flags = in.get();
+            am.putOriginal(r, c, (flags & LatticeFile.ACTIVE_FLAG) != 0, (flags & LatticeFile.STUCK_FLAG) != 0);
+        } else if (type == LatticeFile.STICKY_WALL) {
+            in.get();
+            StickyWall.place(am, r, c);
+        } else {
+            LatticeFile.readThing(am, in, r, c);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package domain;
+
+import java.awt.Color;
+import java.util.BitSet;
+
+/**
+ * An immutable picture of the lattice of an AManufacturing at a given generation.
+ * The occupation and the activity of the squares are row-major bit planes (one {@code long} word covers
+ * 64 columns of a row), so a view can draw or aggregate whole blocks of squares without asking every Thing.
+ * Original cells are gray; every other Thing is listed in row-major order with its position, color, shape and activity.
+ * When the lattice tracks its changes, the snapshot also carries the positions changed since the previous snapshot.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public final class LatticeSnapshot {
+    /** The RGB color of the original cells */
+    public static final int ORIGINAL_COLOR = Color.GRAY.getRGB();
+
+    private final int rows, columns; //The dimensions of the lattice
+    private final int words; //The number of 64-bit words per row
+    private final long generation; //The number of tic-tacs performed by the lattice when pictured
+    private final long[] occupied; //Bit set when a Thing occupies the square
+    private final long[] active; //Bit set when the Thing of the square is active
+    private final int[] thingRows, thingColumns; //The positions of the Things that are not original cells
+    private final int[] thingColors; //The RGB colors of those Things
+    private final int[] thingShapes; //The shapes of those Things
+    private final boolean[] thingActive; //The activity of those Things
+    private final BitSet changes; //The positions changed since the previous snapshot, or null if they are not known
+
+    /**
+     * Creates a snapshot from the pictured planes and Things, which it keeps without copying.
+     */
+    LatticeSnapshot(int rows, int columns, long generation, long[] occupied, long[] active,
+                    int[] thingRows, int[] thingColumns, int[] thingColors, int[] thingShapes, boolean[] thingActive,
+                    BitSet changes) {
+        this.rows = rows;
+        this.columns = columns;
+        this.words = (columns + 63) >>> 6;
+        this.generation = generation;
+        this.occupied = occupied;
+        this.active = active;
+        this.thingRows = thingRows;
+        this.thingColumns = thingColumns;
+        this.thingColors = thingColors;
+        this.thingShapes = thingShapes;
+        this.thingActive = thingActive;
+        this.changes = changes;
+    }
+
+    /**
+     * Returns the number of rows of the lattice.
+     * @return the number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of the lattice.
+     * @return the number of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the generation of the lattice when it was pictured.
+     * @return the number of tic-tacs performed by the lattice.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Checks if a Thing occupied the given position.
+     * @param r the row index.
+     * @param c the column index.
+     * @return {@code true} if the square was occupied.
+     */
+    public boolean isOccupied(int r, int c) {
+        return (occupied[r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Checks if the Thing at the given position was active.
+     * @param r the row index.
+     * @param c the column index.
+     * @return {@code true} if the square held an active Thing.
+     */
+    public boolean isActive(int r, int c) {
+        return (active[r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Counts the active squares of a run of columns of a row.
+     * @param r the row index.
+     * @param c the first column of the run.
+     * @param length the number of columns of the run, which must lie inside the lattice.
+     * @return the number of active squares in the run.
+     */
+    public int countActive(int r, int c, int length) {
+        return count(active, r, c, length);
+    }
+
+    /**
+     * Counts the occupied squares of a run of columns of a row.
+     * @param r the row index.
+     * @param c the first column of the run.
+     * @param length the number of columns of the run, which must lie inside the lattice.
+     * @return the number of occupied squares in the run.
+     */
+    public int countOccupied(int r, int c, int length) {
+        return count(occupied, r, c, length);
+    }
+
+    /**
+     * Counts the bits of a run of columns of a row of a bit plane, a word at a time.
+     */
+    private int count(long[] plane, int r, int c, int length) {
+        int total = 0;
+        int end = c + length;
+        while (c < end) {
+            int bit = c & 63;
+            int n = Math.min(64 - bit, end - c);
+            long mask = (n == 64 ? -1L : ((1L << n) - 1) << bit);
+            total += Long.bitCount(plane[r * words + (c >>> 6)] & mask);
+            c += n;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of Things that are not original cells.
+     * @return the number of listed Things.
+     */
+    public int getThingCount() {
+        return thingRows.length;
+    }
+
+    /**
+     * Returns the row of a listed Thing.
+     * @param i the index of the Thing, from 0 to {@code getThingCount() - 1}.
+     * @return the row of the Thing.
+     */
+    public int getThingRow(int i) {
+        return thingRows[i];
+    }
+
+    /**
+     * Returns the column of a listed Thing.
+     * @param i the index of the Thing, from 0 to {@code getThingCount() - 1}.
+     * @return the column of the Thing.
+     */
+    public int getThingColumn(int i) {
+        return thingColumns[i];
+    }
+
+    /**
+     * Returns the color of a listed Thing.
+     * @param i the index of the Thing, from 0 to {@code getThingCount() - 1}.
+     * @return the RGB color of the Thing.
+     */
+    public int getThingColor(int i) {
+        return thingColors[i];
+    }
+
+    /**
+     * Returns the shape of a listed Thing.
+     * @param i the index of the Thing, from 0 to {@code getThingCount() - 1}.
+     * @return the shape of the Thing, either {@code Thing.ROUND} or {@code Thing.SQUARE}.
+     */
+    public int getThingShape(int i) {
+        return thingShapes[i];
+    }
+
+    /**
+     * Checks if a listed Thing was active.
+     * @param i the index of the Thing, from 0 to {@code getThingCount() - 1}.
+     * @return {@code true} if the Thing was active.
+     */
+    public boolean isThingActive(int i) {
+        return thingActive[i];
+    }
+
+    /**
+     * Returns a checksum of what the snapshot pictures: the occupation and the activity of every square and the
+     * position, color, shape and activity of every listed Thing. Equal lattices have equal checksums whatever
+     * their storage, so runs can be compared with one number.
+     * @return the checksum.
+     */
+    public long checksum() {
+        long hash = mix(rows, columns);
+        for (int i = 0; i < occupied.length; i++) {
+            hash = mix(hash, occupied[i]);
+            hash = mix(hash, active[i]);
+        }
+        for (int i = 0; i < thingRows.length; i++) {
+            hash = mix(hash, ((long) thingRows[i] << 32) | thingColumns[i]);
+            hash = mix(hash, ((long) thingColors[i] << 32) | (thingShapes[i] << 1) | (thingActive[i] ? 1 : 0));
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes a value into a hash.
+     */
+    private static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Returns the index of the listed Thing at the given position.
+     * @param r the row index.
+     * @param c the column index.
+     * @return the index of the Thing, or -1 if the position holds an original cell or nothing.
+     */
+    public int thingAt(int r, int c) {
+        int low = 0, high = thingRows.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = (thingRows[middle] != r ? Integer.compare(thingRows[middle], r) : Integer.compare(thingColumns[middle], c));
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the positions changed since the previous snapshot.
+     * The position {@code (r, c)} is the bit {@code r * getColumns() + c} of the result.
+     * @return a copy of the changed positions, or null if they are not known and any position may have changed.
+     */
+    public BitSet getChanges() {
+        return (changes == null ? null : (BitSet) changes.clone());
+    }
+
+    /**
+     * Returns this snapshot carrying also the changes of an earlier snapshot that will not be drawn,
+     * so that skipping it does not lose the positions it changed.
+     * @param earlier the skipped snapshot, taken before this one.
+     * @return a snapshot of the same lattice with the changes of both snapshots.
+     */
+    public LatticeSnapshot withEarlierChanges(LatticeSnapshot earlier) {
+        BitSet merged = null;
+        if (changes != null && earlier.changes != null) {
+            merged = (BitSet) changes.clone();
+            merged.or(earlier.changes);
+        }
+        return new LatticeSnapshot(rows, columns, generation, occupied, active,
+                                   thingRows, thingColumns, thingColors, thingShapes, thingActive, merged);
+    }
+}
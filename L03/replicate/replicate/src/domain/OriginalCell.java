@@ -1,5 +1,4 @@
 package domain;
-import java.awt.Color;
 
 /**
  * Represents an original type of cell in the manufacturing lattice.
@@ -11,18 +10,31 @@ import java.awt.Color;
  */
 
 public class OriginalCell extends Cell {
+    private long counted; //The tic-tacs of the object lattice up to which the steps of the cell are counted
 
     /**
      * Creates a new original cell at the specified row and column in the given manufacturing lattice.
-     * Sets the color of the cell to gray.
      * @param am The manufacturing lattice to which the cell belongs.
      * @param row The row index of the cell.
      * @param column The column index of the cell.
      * @param active The initial state of the cell, active or inactive.
      */
     public OriginalCell(AManufacturing am, int row, int column, boolean active) {
-        super(am, row, column, active);
-        this.color = Color.GRAY; // Set color to gray
+        this(am.cellKind(CellKind.ORIGINAL), row, column, active);
+        place();
+    }
+
+    /**
+     * Creates a new original cell of the given kind without placing it in the lattice, as when the lattice
+     * fills many squares at once or reads a packed cell.
+     * @param kind The kind of the original cells of the lattice.
+     * @param row The row index of the cell.
+     * @param column The column index of the cell.
+     * @param active The initial state of the cell, active or inactive.
+     */
+    OriginalCell(CellKind kind, int row, int column, boolean active) {
+        super(kind, row, column, active);
+        counted = kind.aManufacturing.objectTicTacs();
     }
 
     /**
@@ -32,11 +44,7 @@ public class OriginalCell extends Cell {
     @Override
     public void decide() {
         int activeNeighbors = totalActiveNeighbors();
-        if (activeNeighbors % 2 == 1) {
-            nextState = Artefact.ACTIVE;
-        } else {
-            nextState = Artefact.INACTIVE;
-        }
+        nextActive = (activeNeighbors % 2 == 1);
     }
 
     /**
@@ -44,29 +52,47 @@ public class OriginalCell extends Cell {
      * @return The total number of active neighboring cells.
      */
     private int totalActiveNeighbors() {
-        int count = 0;
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                int newRow = row + dr;
-                int newCol = column + dc;
-                if (aManufacturing.inLatice(newRow, newCol)) {
-                    Thing neighbor = aManufacturing.getThing(newRow, newCol);
-                    if (neighbor != null && neighbor.isActive()) {
-                        count++;
-                    }
-                }
-            }
+        return kind.aManufacturing.activeAround(row, column);
+    }
+
+    /**
+     * Changes the current state of the cell to the next state, after taking the steps of the tic-tacs that did not
+     * visit it because its neighbourhood stayed the same.
+     */
+    @Override
+    public void change() {
+        int skipped = skippedSteps();
+        if (skipped != 0) {
+            super.setSteps(super.getSteps() + skipped);
         }
-        return count;
+        super.change();
+        counted = kind.aManufacturing.objectTicTacs() + 1;
     }
 
     /**
-     * Returns the color of the original cell, which is gray.
-     * @return The color of the cell.
+     * Returns the number of steps taken by the cell, including those of the tic-tacs that did not visit it.
+     * @return The number of steps.
      */
     @Override
-    public Color getColor() {
-        return Color.GRAY;
+    public int getSteps() {
+        return super.getSteps() + skippedSteps();
+    }
+
+    /**
+     * Sets the number of steps taken by the cell, as of the tic-tacs performed so far.
+     * @param steps The number of steps.
+     */
+    @Override
+    void setSteps(int steps) {
+        super.setSteps(steps);
+        counted = kind.aManufacturing.objectTicTacs();
+    }
+
+    /**
+     * Returns the steps of the tic-tacs that did not visit the cell: one each, or two while it is stuck.
+     */
+    private int skippedSteps() {
+        return (int) (kind.aManufacturing.objectTicTacs() - counted) * (isStuck ? 2 : 1);
     }
 
     /**
@@ -75,6 +101,7 @@ public class OriginalCell extends Cell {
      */
     public void changeState(boolean active) {
         this.state = (active ? Artefact.ACTIVE : Artefact.INACTIVE);
-        this.nextState = this.state;
+        this.nextActive = active;
+        kind.aManufacturing.activityChanged(row, column);
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package domain;
+
+/**
+ * A view of an original cell kept in the packed lattice of an AManufacturing.
+ * The view holds no state of its own: every read and write goes to the packed bit planes,
+ * so it behaves as the OriginalCell that would be at that position in the object lattice.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class PackedCell extends OriginalCell {
+    private final PackedLattice packed; //The packed storage where the cell lives
+
+    /**
+     * Creates a view of the packed cell at the given position.
+     * @param am The manufacturing lattice to which the cell belongs.
+     * @param packed The packed storage where the cell lives.
+     * @param row The row index of the cell.
+     * @param column The column index of the cell.
+     */
+    PackedCell(AManufacturing am, PackedLattice packed, int row, int column) {
+        super(am.cellKind(CellKind.ORIGINAL), row, column, packed.isActive(row, column));
+        this.packed = packed;
+    }
+
+    /**
+     * Checks if this is a view of a cell of the given packed storage.
+     * @param packed The packed storage.
+     * @return {@code true} if the view reads and writes that storage.
+     */
+    boolean isViewOf(PackedLattice packed) {
+        return this.packed == packed;
+    }
+
+    /**
+     * Decides the next state of the packed cell.
+     */
+    @Override
+    public void decide() {
+        packed.decide(row, column);
+    }
+
+    /**
+     * Changes the packed cell to its next state.
+     */
+    @Override
+    public void change() {
+        packed.change(row, column);
+    }
+
+    /**
+     * Changes the state of the packed cell to the specified state.
+     * @param active The new state of the cell.
+     */
+    @Override
+    public void changeState(boolean active) {
+        packed.changeState(row, column, active);
+    }
+
+    /**
+     * Checks if the packed cell is active.
+     * @return {@code true} if the cell is active.
+     */
+    @Override
+    public boolean isActive() {
+        return packed.isActive(row, column);
+    }
+
+    /**
+     * Returns the number of steps taken by the packed cell.
+     * @return The number of steps.
+     */
+    @Override
+    public int getSteps() {
+        return packed.getSteps(row, column);
+    }
+
+    /**
+     * Gets whether the packed cell is stuck.
+     * @return True if the cell is stuck, false otherwise.
+     */
+    @Override
+    public boolean getIsStuck() {
+        return packed.isStuck(row, column);
+    }
+}
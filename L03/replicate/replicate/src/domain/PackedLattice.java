@@ -0,0 +1,1157 @@
+package domain;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Packed storage for the lattice of an AManufacturing.
+ * Original cells are not kept as objects: their presence, state, next state and stuck flag are bits
+ * in row-major bit planes (one {@code long} word covers 64 columns of a row). Any other Thing
+ * (tourist and reflective cells, poison, or original cells placed by hand) stays an object. The squares of the
+ * sticky walls are only marked as occupied here: their walls are found in the wall index of the AManufacturing.
+ * A tic-tac decides and changes the packed cells a whole word at a time, going square by square
+ * only around the Things that move while deciding.
+ * <br>
+ * The lattice is also split in tiles of 64x64 squares (64 rows of one word). When sparse, a tic-tac only
+ * evaluates the tiles holding active cells or object Things and the tiles around them: elsewhere every
+ * cell and its neighbours are inactive, so the cell stays inactive and only takes its common step.
+ * <br>
+ * Steps are not stored per cell. Every packed cell takes one step per tic-tac, or two once it is stuck,
+ * so its steps are {@code ticTacs * (stuck ? 2 : 1) + offset}, where the offset is only stored for the few
+ * cells that differ from the rest (placed later, stuck, or changed by hand). The cells of a region filled after
+ * some tic-tacs share the offset of their fill instead, kept once for the whole region.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class PackedLattice {
+    private final AManufacturing aManufacturing; //The manufacturing environment that owns this storage
+    private final int rows, columns; //The dimensions of the lattice
+    private final int words; //The number of 64-bit words per row
+    private final long[] present; //Bit set when a packed original cell occupies the square
+    private final long[] state; //Bit set when the packed original cell is active
+    private final long[] next; //Bit set when the packed original cell will be active after the change
+    private final long[] stuck; //Bit set when the packed original cell is stuck
+    private final long[] things; //Bit set when an object Thing occupies the square
+    private final long[] thingsActive; //Bit set when the object Thing was active as the decide phase started
+    private final long[] movingRows; //Bit set for the rows holding a Thing that moves while deciding
+    private long[] activeThingKeys = new long[0]; //The positions set in thingsActive, to clear them
+    private int activeThings; //The number of positions set in thingsActive
+    private final Map<Long, Thing> objects = new HashMap<>(); //The object Things by position
+    private final Map<Long, Integer> offsets = new HashMap<>(); //The step offsets that are not the ones of their fill
+    private final List<Fill> fills = new ArrayList<>(); //The regions filled after some tic-tacs, the latest last
+    private int ticTacs; //The number of tic-tacs performed
+    private boolean wallsActive; //Whether thingsActive holds the squares of the sticky walls, so it must be cleared whole
+    private boolean deciding; //Whether a tic-tac is in its decide phase
+    private int touchedRow; //The last row changed by a Thing that moved during the decide phase
+    private final int tileRows; //The number of rows of tiles
+    private final boolean[] activeTiles; //Whether a tile holds an active cell or an object Thing
+    private final int[] scheduled; //The tiles evaluated by the current tic-tac
+    private int scheduledTiles; //The number of tiles evaluated by the current tic-tac, or -1 for all of them
+    private boolean sparse; //Whether tic-tacs only evaluate the tiles with activity and those around them
+    private int boundary = AManufacturing.BOUNDED; //What lies beyond the edges of the lattice
+    private int westColumn = -1, eastColumn = -1; //The columns read beyond the west and east edges, or -1 for none
+    private final TreeSet<Integer> changingRows = new TreeSet<>(); //The rows holding object Things during the change phase
+    private boolean changing; //Whether a tic-tac is in the change phase of the object Things
+    private final RowBands.Band decideRowsByWords = this::decideRowsByWords; //The bands deciding rows by words
+    private final RowBands.Band changeRowsByWords = this::changeRowsByWords; //The bands changing rows by words
+    private final RowBands.Band decideTiles = this::decideTiles; //The bands deciding scheduled tiles
+    private final RowBands.Band changeTiles = this::changeTiles; //The bands changing scheduled tiles
+
+    /**
+     * A region filled with packed cells, whose cells share the step offset they were filled with.
+     */
+    private static final class Fill {
+        private final int top, left, bottom, right; //The bounds of the region
+        private final int offset; //The step offset of the cells of the region
+
+        Fill(int top, int left, int bottom, int right, int offset) {
+            this.top = top;
+            this.left = left;
+            this.bottom = bottom;
+            this.right = right;
+            this.offset = offset;
+        }
+
+        boolean contains(int r, int c) {
+            return r >= top && r <= bottom && c >= left && c <= right;
+        }
+    }
+
+    /**
+     * Creates an empty packed storage.
+     * @param am The manufacturing environment that owns this storage.
+     * @param rows The number of rows.
+     * @param columns The number of columns.
+     */
+    PackedLattice(AManufacturing am, int rows, int columns) {
+        this.aManufacturing = am;
+        this.rows = rows;
+        this.columns = columns;
+        this.words = (columns + 63) >>> 6;
+        long size = (long) rows * words;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The lattice is too large to be packed: " + rows + "x" + columns);
+        }
+        present = new long[(int) size];
+        state = new long[(int) size];
+        next = new long[(int) size];
+        stuck = new long[(int) size];
+        things = new long[(int) size];
+        thingsActive = new long[(int) size];
+        movingRows = new long[(rows + 63) >>> 6];
+        tileRows = (rows + 63) >>> 6;
+        activeTiles = new boolean[tileRows * words];
+        scheduled = new int[tileRows * words];
+        scheduledTiles = -1;
+    }
+
+    /**
+     * Sets whether tic-tacs only evaluate the tiles with activity and those around them.
+     * @param sparse {@code true} to skip the quiescent tiles.
+     */
+    void setSparse(boolean sparse) {
+        this.sparse = sparse;
+        if (sparse) {
+            refreshTiles();
+        }
+    }
+
+    /**
+     * Sets what lies beyond the edges of the lattice, as {@link AManufacturing#setBoundary} describes.
+     * @param boundary {@code BOUNDED}, {@code TORUS} or {@code REFLECTING}.
+     */
+    void setBoundary(int boundary) {
+        this.boundary = boundary;
+        westColumn = aManufacturing.haloColumn(-1);
+        eastColumn = aManufacturing.haloColumn(columns);
+    }
+
+    /**
+     * Checks whether tic-tacs only evaluate the tiles with activity and those around them.
+     * @return {@code true} if quiescent tiles are skipped.
+     */
+    boolean isSparse() {
+        return sparse;
+    }
+
+    /**
+     * Counts the packed cells evaluated by the last tic-tac: all of them, or those of its scheduled tiles.
+     * @return The number of packed cells evaluated.
+     */
+    long countEvaluated() {
+        long count = 0;
+        if (scheduledTiles < 0) {
+            for (long bits : present) {
+                count += Long.bitCount(bits);
+            }
+            return count;
+        }
+        for (int k = 0; k < scheduledTiles; k++) {
+            int w = scheduled[k] % words;
+            int first = (scheduled[k] / words) << 6;
+            for (int r = first; r < Math.min(rows, first + 64); r++) {
+                count += Long.bitCount(present[r * words + w]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the active cells, packed or held as object Things.
+     * @return The number of active cells.
+     */
+    long countActive() {
+        long count = 0;
+        for (int i = 0; i < state.length; i++) {
+            count += Long.bitCount(state[i] & present[i]);
+        }
+        for (Thing thing : objects.values()) {
+            count += (thing instanceof Cell && thing.isActive() ? 1 : 0);
+        }
+        return count;
+    }
+
+    /**
+     * Counts by type the object Things and the squares of the sticky walls, which are all evaluated by every tic-tac.
+     * @return The counts of original cells, plain cells, tourist cells, reflective cells, poison and sticky walls.
+     */
+    long[] countObjects() {
+        long[] counts = new long[6];
+        for (Thing thing : objects.values()) {
+            AManufacturing.count(thing, counts);
+        }
+        WallIndex walls = aManufacturing.wallIndex();
+        counts[5] += (walls != null ? walls.size() : 0);
+        return counts;
+    }
+
+    /**
+     * Returns the number of tiles evaluated by the last tic-tac.
+     * @return The number of tiles, all of them unless the lattice is sparse.
+     */
+    int getActiveTiles() {
+        return (scheduledTiles < 0 ? activeTiles.length : scheduledTiles);
+    }
+
+    /**
+     * Fills every square with an original cell in the given state, discarding what was there.
+     * @param active The state of the new cells.
+     */
+    void fill(boolean active) {
+        objects.clear();
+        offsets.clear();
+        fills.clear();
+        long last = (columns % 64 == 0 ? -1L : (1L << columns) - 1);
+        for (int r = 0; r < rows; r++) {
+            for (int w = 0; w < words; w++) {
+                int i = r * words + w;
+                long bits = (w == words - 1 ? last : -1L);
+                present[i] = bits;
+                state[i] = (active ? bits : 0);
+                next[i] = state[i];
+                stuck[i] = 0;
+                things[i] = 0;
+            }
+        }
+        Arrays.fill(activeTiles, active);
+        ticTacs = 0;
+    }
+
+    /**
+     * Removes the object Things and the step offsets of a region, before it is filled row by row with {@link #fillRow}.
+     * @param top The first row of the region.
+     * @param left The first column of the region.
+     * @param bottom The last row of the region.
+     * @param right The last column of the region.
+     */
+    void beginFill(int top, int left, int bottom, int right) {
+        objects.keySet().removeIf(key -> inRegion(key, top, left, bottom, right));
+        offsets.keySet().removeIf(key -> inRegion(key, top, left, bottom, right));
+    }
+
+    /**
+     * Fills the squares of a row between two columns with packed cells, or empties them, a word at a time.
+     * Rows can be filled from parallel bands, since a row only writes its own words.
+     * @param r The row index.
+     * @param left The first column.
+     * @param right The last column.
+     * @param cells {@code true} to place packed cells, {@code false} to empty the squares.
+     * @param active The states of the new cells, by word of the row.
+     */
+    void fillRow(int r, int left, int right, boolean cells, long[] active) {
+        for (int w = left >>> 6; w <= right >>> 6; w++) {
+            int i = r * words + w;
+            long m = mask(w, left, right);
+            long bits = (cells ? active[w] & m : 0);
+            present[i] = (cells ? present[i] | m : present[i] & ~m);
+            state[i] = (state[i] & ~m) | bits;
+            next[i] = (next[i] & ~m) | bits;
+            stuck[i] &= ~m;
+            things[i] &= ~m;
+        }
+    }
+
+    /**
+     * Ends the fill of a region: the new cells have taken no steps yet, which is recorded once for the region,
+     * and the tiles are taken again.
+     * @param top The first row of the region.
+     * @param left The first column of the region.
+     * @param bottom The last row of the region.
+     * @param right The last column of the region.
+     * @param cells Whether the region was filled with packed cells.
+     */
+    void endFill(int top, int left, int bottom, int right, boolean cells) {
+        if (cells && (ticTacs != 0 || !fills.isEmpty())) {
+            // The earlier fills covered by this one no longer hold any cell
+            fills.removeIf(f -> f.top >= top && f.left >= left && f.bottom <= bottom && f.right <= right);
+            fills.add(new Fill(top, left, bottom, right, -ticTacs));
+        }
+        if (sparse) {
+            refreshTiles();
+        }
+    }
+
+    /**
+     * Returns the bits of a word of a row that lie between two columns.
+     * @param w The word index in the row.
+     * @param left The first column.
+     * @param right The last column.
+     * @return The mask of the columns of the word from left to right.
+     */
+    static long mask(int w, int left, int right) {
+        long m = -1L;
+        if (w == left >>> 6) {
+            m &= -1L << left;
+        }
+        if (w == right >>> 6) {
+            m &= -1L >>> (63 - (right & 63));
+        }
+        return m;
+    }
+
+    /**
+     * Checks if a position of the object map lies in a region.
+     */
+    private boolean inRegion(long key, int top, int left, int bottom, int right) {
+        int r = (int) (key / columns);
+        int c = (int) (key % columns);
+        return r >= top && r <= bottom && c >= left && c <= right;
+    }
+
+    /**
+     * Returns the Thing at the given position: the object, a view of the packed cell, or null.
+     * @param r The row index.
+     * @param c The column index.
+     * @return The Thing at the position, or null if the square is empty.
+     */
+    Thing get(int r, int c) {
+        int i = r * words + (c >>> 6);
+        long bit = 1L << c;
+        if ((things[i] & bit) != 0) {
+            Thing thing = objects.get(key(r, c));
+            return (thing != null ? thing : aManufacturing.wallIndex().wallAt(r, c));
+        }
+        if ((present[i] & bit) != 0) {
+            return new PackedCell(aManufacturing, this, r, c);
+        }
+        return null;
+    }
+
+    /**
+     * Places a Thing at the given position.
+     * A view of a packed cell is stored packed again; a sticky wall only marks the square as occupied, since
+     * the wall index keeps it; any other Thing is stored as an object.
+     * @param r The row index.
+     * @param c The column index.
+     * @param e The Thing to place, or null to empty the square.
+     * @return {@code false} if the Thing was a view already at that position, so nothing changed.
+     */
+    boolean set(int r, int c, Thing e) {
+        if (e instanceof PackedCell && ((PackedCell) e).isViewOf(this)
+            && ((PackedCell) e).getRow() == r && ((PackedCell) e).getColumn() == c) {
+            return false; // The cell is already there
+        }
+        if (deciding) {
+            touchedRow = Math.max(touchedRow, r);
+        }
+        if (changing && e != null) {
+            changingRows.add(r);
+        }
+        if (e instanceof PackedCell && ((PackedCell) e).isViewOf(this)) {
+            PackedCell cell = (PackedCell) e;
+            boolean active = cell.isActive();
+            boolean willBeActive = isNextActive(cell.getRow(), cell.getColumn());
+            boolean isStuck = cell.getIsStuck();
+            int steps = cell.getSteps();
+            clear(r, c);
+            putPacked(r, c, active, willBeActive, isStuck, steps);
+            return true;
+        }
+        clear(r, c);
+        if (e != null) {
+            int i = r * words + (c >>> 6);
+            things[i] |= 1L << c;
+            if (!(e instanceof StickyWall)) {
+                objects.put(key(r, c), e);
+            }
+            markTile(r, c);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the given position is empty.
+     * @param r The row index.
+     * @param c The column index.
+     * @return {@code true} if nothing occupies the square.
+     */
+    boolean isEmpty(int r, int c) {
+        int i = r * words + (c >>> 6);
+        return ((present[i] | things[i]) & (1L << c)) == 0;
+    }
+
+    /**
+     * Checks if the given position holds a packed cell, rather than an object Thing or nothing.
+     * @param r The row index.
+     * @param c The column index.
+     * @return {@code true} if a packed cell occupies the square.
+     */
+    boolean isPacked(int r, int c) {
+        return (present[r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Checks if the Thing at the given position is active.
+     * @param r The row index.
+     * @param c The column index.
+     * @return {@code true} if the square holds an active Thing.
+     */
+    boolean isActive(int r, int c) {
+        int i = r * words + (c >>> 6);
+        long bit = 1L << c;
+        if ((things[i] & bit) != 0) {
+            Thing thing = objects.get(key(r, c));
+            return (thing == null || thing.isActive()); // Sticky walls are always active
+        }
+        return (state[i] & bit) != 0;
+    }
+
+    /**
+     * Counts the active Things in the 3x3 neighbourhood of a position, including the position itself.
+     * @param r The row index.
+     * @param c The column index.
+     * @return The number of active Things.
+     */
+    int totalActive(int r, int c) {
+        int count = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int nr = aManufacturing.haloRow(r + dr), nc = aManufacturing.haloColumn(c + dc);
+                if (nr >= 0 && nc >= 0 && isActive(nr, nc)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Decides the next state of the packed cell at the given position with the rule of OriginalCell.
+     * @param r The row index.
+     * @param c The column index.
+     */
+    void decide(int r, int c) {
+        int i = r * words + (c >>> 6);
+        long bit = 1L << c;
+        if (totalActive(r, c) % 2 == 1) {
+            next[i] |= bit;
+            markTile(r, c);
+        } else {
+            next[i] &= ~bit;
+        }
+    }
+
+    /**
+     * Changes the packed cell at the given position to its next state, outside of a tic-tac.
+     * @param r The row index.
+     * @param c The column index.
+     */
+    void change(int r, int c) {
+        int i = r * words + (c >>> 6);
+        long bit = 1L << c;
+        int steps = getSteps(r, c) + 1;
+        state[i] = (state[i] & ~bit) | (next[i] & bit);
+        if ((stuck[i] & bit) == 0 && aManufacturing.nearStickyWall(r, c)) {
+            stuck[i] |= bit;
+            aManufacturing.becameStuck(r, c);
+        }
+        if ((stuck[i] & bit) != 0) {
+            steps++;
+        }
+        setSteps(r, c, steps);
+        if ((state[i] & bit) != 0) {
+            markTile(r, c);
+        }
+    }
+
+    /**
+     * Changes the state of the packed cell at the given position, as {@link OriginalCell#changeState} does.
+     * @param r The row index.
+     * @param c The column index.
+     * @param active The new state of the cell.
+     */
+    void changeState(int r, int c, boolean active) {
+        int i = r * words + (c >>> 6);
+        long bit = 1L << c;
+        if (active) {
+            state[i] |= bit;
+            next[i] |= bit;
+            markTile(r, c);
+        } else {
+            state[i] &= ~bit;
+            next[i] &= ~bit;
+        }
+        aManufacturing.activityChanged(r, c);
+    }
+
+    /**
+     * Checks if the packed cell at the given position will be active after the change.
+     * @param r The row index.
+     * @param c The column index.
+     * @return {@code true} if its next state is active.
+     */
+    boolean isNextActive(int r, int c) {
+        return (next[r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Checks if the packed cell at the given position is stuck.
+     * @param r The row index.
+     * @param c The column index.
+     * @return {@code true} if the cell is stuck.
+     */
+    boolean isStuck(int r, int c) {
+        return (stuck[r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Returns the steps taken by the packed cell at the given position.
+     * @param r The row index.
+     * @param c The column index.
+     * @return The number of steps.
+     */
+    int getSteps(int r, int c) {
+        return ticTacs * (isStuck(r, c) ? 2 : 1) + offsetOf(r, c);
+    }
+
+    /**
+     * Returns the step offset of the packed cell at the given position: its own, or else the one of the latest fill
+     * of its square.
+     */
+    private int offsetOf(int r, int c) {
+        Integer offset = offsets.get(key(r, c));
+        return (offset != null ? offset : fillOffset(r, c));
+    }
+
+    /**
+     * Returns the step offset of the latest fill of a square, or zero if it was never filled after a tic-tac.
+     */
+    private int fillOffset(int r, int c) {
+        for (int k = fills.size() - 1; k >= 0; k--) {
+            if (fills.get(k).contains(r, c)) {
+                return fills.get(k).offset;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Performs the decide phase of a tic-tac cycle.
+     * Squares are visited in row-major order as the object lattice does, so Things that move while
+     * deciding are seen exactly where the object lattice would see them.
+     * Rows whose neighbourhood has not been disturbed by a moving Thing are decided 64 cells at a time.
+     * When nothing moves while deciding, a sparse lattice only decides the scheduled tiles, and with
+     * a pool the rows or tiles are decided in parallel.
+     * @param pool The pool running the bands, or null to run on the calling thread.
+     */
+    void decide(ForkJoinPool pool) {
+        boolean moving = prepareDecide();
+        scheduledTiles = -1;
+        if (sparse && !moving) {
+            // Only the tiles with activity and those around them can change
+            schedule();
+            RowBands.run(pool, scheduledTiles, decideTiles);
+            for (long key : sortedObjectKeys()) {
+                objects.get(key).decide();
+            }
+        } else if (pool != null && !moving) {
+            // Nothing moves while deciding, so every row can be decided by words independently
+            RowBands.run(pool, rows, decideRowsByWords);
+        } else {
+            for (int r = 0; r < rows; r++) {
+                // On a torus the last row is next to the first one, which may have been touched long before
+                boolean wrapTouched = (r == rows - 1 && touchedRow >= 0 && boundary == AManufacturing.TORUS);
+                if (touchedRow >= r - 1 || wrapTouched || (movingRows[r >>> 6] & (1L << r)) != 0) {
+                    decideRow(r);
+                } else {
+                    decideRowByWords(r);
+                }
+            }
+        }
+        deciding = false;
+    }
+
+    /**
+     * Performs the change phase of a tic-tac cycle.
+     * With a pool the packed cells change in parallel bands; the object Things always change
+     * on the calling thread, in row-major order.
+     * @param pool The pool running the bands, or null to run on the calling thread.
+     */
+    void change(ForkJoinPool pool) {
+        ticTacs++;
+        if (scheduledTiles >= 0) {
+            RowBands.run(pool, scheduledTiles, changeTiles);
+        } else {
+            RowBands.run(pool, rows, changeRowsByWords);
+            if (sparse) {
+                refreshTiles();
+            }
+        }
+        WallIndex walls = aManufacturing.wallIndex();
+        if (walls != null && !walls.isEmpty()) {
+            stickAroundWalls(walls.nearPlane());
+        }
+        // Rows where a Thing moves to are added as the Things change, so each row is read as it is then
+        changing = true;
+        if (!objects.isEmpty()) {
+            for (long key : objects.keySet()) {
+                changingRows.add((int) (key / columns));
+            }
+        }
+        for (Integer r = (changingRows.isEmpty() ? null : changingRows.first()); r != null; r = changingRows.higher(r)) {
+            for (int w = 0; w < words; w++) {
+                int i = r * words + w;
+                for (int c = w << 6; objectBits(i) != 0 && c < Math.min(columns, (w + 1) << 6); c++) {
+                    Thing thing = ((objectBits(i) & (1L << c)) != 0 ? objects.get(key(r, c)) : null);
+                    if (thing != null) {
+                        thing.change();
+                    }
+                }
+            }
+        }
+        changing = false;
+        changingRows.clear();
+    }
+
+    /**
+     * Decides the packed cells of the given rows by words.
+     */
+    private void decideRowsByWords(int from, int to) {
+        for (int r = from; r < to; r++) {
+            decideRowByWords(r);
+        }
+    }
+
+    /**
+     * Changes the packed cells of the given rows by words.
+     */
+    private void changeRowsByWords(int from, int to) {
+        for (int i = from * words; i < to * words; i++) {
+            state[i] = (state[i] & ~present[i]) | (next[i] & present[i]);
+        }
+    }
+
+    /**
+     * Decides the packed cells of the given range of scheduled tiles.
+     */
+    private void decideTiles(int from, int to) {
+        for (int k = from; k < to; k++) {
+            decideTile(scheduled[k]);
+        }
+    }
+
+    /**
+     * Changes the packed cells of the given range of scheduled tiles.
+     */
+    private void changeTiles(int from, int to) {
+        for (int k = from; k < to; k++) {
+            changeTile(scheduled[k]);
+        }
+    }
+
+    /**
+     * Writes the planes of presence, state and stuck flag of the packed cells, one after the other.
+     * @param out The buffer receiving the words of the planes.
+     */
+    void writePlanes(LongBuffer out) {
+        out.put(present);
+        out.put(state);
+        out.put(stuck);
+    }
+
+    /**
+     * Reads the planes of presence, state and stuck flag of the packed cells written by {@link #writePlanes},
+     * and their steps. The squares of the object Things already placed must be absent from the planes.
+     * @param in The buffer holding the words of the planes.
+     * @param ticTacs The common steps of the cells that are not stuck.
+     * @param offsets The step offsets that are not zero, by position.
+     */
+    void readPlanes(LongBuffer in, int ticTacs, Map<Long, Integer> offsets) {
+        in.get(present);
+        in.get(state);
+        in.get(stuck);
+        System.arraycopy(state, 0, next, 0, state.length);
+        this.ticTacs = ticTacs;
+        this.offsets.clear();
+        this.offsets.putAll(offsets);
+        fills.clear();
+        refreshTiles();
+    }
+
+    /**
+     * Places a packed cell at the given position, replacing whatever was there, with the steps of a cell that was
+     * always there.
+     * @param r The row index.
+     * @param c The column index.
+     * @param active Whether the cell is active.
+     * @param isStuck Whether the cell is stuck.
+     */
+    void putCell(int r, int c, boolean active, boolean isStuck) {
+        clear(r, c);
+        putPacked(r, c, active, active, isStuck, ticTacs * (isStuck ? 2 : 1));
+    }
+
+    /**
+     * Returns the number of tic-tacs the steps of the packed cells count from.
+     * @return The common steps of the cells that are not stuck.
+     */
+    int getTicTacs() {
+        return ticTacs;
+    }
+
+    /**
+     * Returns the step offsets that are not zero, those of the filled regions included.
+     * @return The offsets by position.
+     */
+    Map<Long, Integer> getOffsets() {
+        Map<Long, Integer> all = new HashMap<>();
+        for (Fill fill : fills) {
+            for (int r = fill.top; r <= fill.bottom; r++) {
+                for (int c = fill.left; c <= fill.right; c++) {
+                    if ((present[r * words + (c >>> 6)] & (1L << c)) != 0) {
+                        all.put(key(r, c), fill.offset);
+                    }
+                }
+            }
+        }
+        all.putAll(offsets);
+        all.values().removeIf(offset -> offset == 0);
+        return all;
+    }
+
+    /**
+     * Returns the object Things, together with the squares of the sticky walls.
+     * @return The object Things by position, read-only.
+     */
+    Map<Long, Thing> getObjects() {
+        WallIndex walls = aManufacturing.wallIndex();
+        if (walls == null || walls.isEmpty()) {
+            return Collections.unmodifiableMap(objects);
+        }
+        Map<Long, Thing> all = new HashMap<>(objects);
+        walls.putWalls(all);
+        return Collections.unmodifiableMap(all);
+    }
+
+    /**
+     * Pictures the occupation and the activity of every square, and lists the object Things.
+     * @param occupied The row-major bit plane receiving the occupied squares.
+     * @param active The row-major bit plane receiving the active squares.
+     * @return The object Things by position.
+     */
+    Map<Long, Thing> picture(long[] occupied, long[] active) {
+        WallIndex walls = aManufacturing.wallIndex();
+        long[] wallPlane = (walls != null ? walls.wallPlane() : null);
+        for (int i = 0; i < state.length; i++) {
+            occupied[i] = present[i] | things[i];
+            active[i] = (state[i] & present[i]) | (wallPlane != null ? wallPlane[i] : 0);
+        }
+        for (Map.Entry<Long, Thing> entry : objects.entrySet()) {
+            if (entry.getValue().isActive()) {
+                long key = entry.getKey();
+                int c = (int) (key % columns);
+                active[(int) (key / columns) * words + (c >>> 6)] |= 1L << c;
+            }
+        }
+        return getObjects();
+    }
+
+    /**
+     * Copies the states of the packed cells.
+     * @param into The array receiving the row-major bit plane of the states.
+     */
+    void copyStates(long[] into) {
+        System.arraycopy(state, 0, into, 0, state.length);
+    }
+
+    /**
+     * Records the positions whose packed state differs from the given states, and the positions of the object
+     * Things, which are few and may change their state or color on any tic-tac.
+     * @param before The row-major bit plane of the states to compare with.
+     * @param changes The row-major bit plane where the changed positions are set.
+     */
+    void recordChanges(long[] before, long[] changes) {
+        for (int i = 0; i < state.length; i++) {
+            changes[i] |= (state[i] ^ before[i]) & present[i];
+        }
+        for (long key : objects.keySet()) {
+            int c = (int) (key % columns);
+            changes[(int) (key / columns) * words + (c >>> 6)] |= 1L << c;
+        }
+    }
+
+    /**
+     * Checks if the lattice can leap by the given number of tic-tacs at once.
+     * @param generations The number of tic-tacs.
+     * @return {@code true} if the lattice is made only of packed original cells and its edges are bounded,
+     * {@code false} if it holds other Things or empty squares, or its edges are not bounded, and has to go
+     * tic-tac by tic-tac.
+     */
+    boolean canLeap(int generations) {
+        if (boundary != AManufacturing.BOUNDED || !objects.isEmpty() || (long) ticTacs + generations > Integer.MAX_VALUE) {
+            return false;
+        }
+        long last = (columns % 64 == 0 ? -1L : (1L << columns) - 1);
+        for (int i = 0; i < present.length; i++) {
+            if (present[i] != (i % words == words - 1 ? last : -1L)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Advances a lattice made only of packed original cells by the given number of tic-tacs at once.
+     * Only call it when {@link #canLeap(int)} holds.
+     * @param generations The number of tic-tacs.
+     */
+    void leap(int generations) {
+        new ParityLeap(rows, columns, words).leap(state, generations);
+        System.arraycopy(state, 0, next, 0, state.length);
+        ticTacs += generations;
+        if (sparse) {
+            refreshTiles();
+        }
+    }
+
+    /**
+     * Schedules the tiles that hold activity, together with the tiles around them.
+     * On a torus the tiles of an edge are around the tiles of the opposite edge.
+     */
+    private void schedule() {
+        scheduledTiles = 0;
+        boolean torus = (boundary == AManufacturing.TORUS);
+        for (int tr = 0; tr < tileRows; tr++) {
+            for (int tw = 0; tw < words; tw++) {
+                boolean around = false;
+                for (int dr = -1; !around && dr <= 1; dr++) {
+                    for (int dw = -1; !around && dw <= 1; dw++) {
+                        int nr = (torus ? Math.floorMod(tr + dr, tileRows) : tr + dr);
+                        int nw = (torus ? Math.floorMod(tw + dw, words) : tw + dw);
+                        around = (nr >= 0 && nr < tileRows && nw >= 0 && nw < words && activeTiles[nr * words + nw]);
+                    }
+                }
+                if (around) {
+                    scheduled[scheduledTiles++] = tr * words + tw;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decides the packed cells of a tile by words.
+     * @param tile The index of the tile.
+     */
+    private void decideTile(int tile) {
+        int w = tile % words;
+        int first = (tile / words) << 6;
+        for (int r = first; r < Math.min(rows, first + 64); r++) {
+            long parity = horizontal(r - 1, w) ^ horizontal(r, w) ^ horizontal(r + 1, w);
+            next[r * words + w] = parity & present[r * words + w];
+        }
+    }
+
+    /**
+     * Changes the packed cells of a tile by words and records whether the tile is still active.
+     * Object Things are recorded when the next decide phase starts.
+     * @param tile The index of the tile.
+     */
+    private void changeTile(int tile) {
+        int w = tile % words;
+        int first = (tile / words) << 6;
+        long active = 0;
+        for (int r = first; r < Math.min(rows, first + 64); r++) {
+            int i = r * words + w;
+            state[i] = (state[i] & ~present[i]) | (next[i] & present[i]);
+            active |= state[i];
+        }
+        activeTiles[tile] = (active != 0);
+    }
+
+    /**
+     * Records for every tile whether it holds active cells or object Things.
+     */
+    private void refreshTiles() {
+        for (int tile = 0; tile < activeTiles.length; tile++) {
+            int w = tile % words;
+            int first = (tile / words) << 6;
+            long active = 0;
+            for (int r = first; r < Math.min(rows, first + 64); r++) {
+                active |= state[r * words + w] | next[r * words + w] | things[r * words + w];
+            }
+            activeTiles[tile] = (active != 0);
+        }
+    }
+
+    /**
+     * Marks as active the tile of the given position.
+     */
+    private void markTile(int r, int c) {
+        activeTiles[(r >>> 6) * words + (c >>> 6)] = true;
+    }
+
+    /**
+     * Returns the positions of the object Things in row-major order.
+     */
+    private long[] sortedObjectKeys() {
+        long[] keys = new long[objects.size()];
+        int k = 0;
+        for (long key : objects.keySet()) {
+            keys[k++] = key;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Takes the activity of the object Things and the rows holding Things that move while deciding,
+     * before the decide phase starts.
+     * @return {@code true} if some Thing moves while deciding.
+     */
+    private boolean prepareDecide() {
+        boolean moving = false;
+        WallIndex walls = aManufacturing.wallIndex();
+        if (walls != null && !walls.isEmpty()) {
+            // The walls are always active, so they are the starting activity of the object Things
+            System.arraycopy(walls.wallPlane(), 0, thingsActive, 0, thingsActive.length);
+            wallsActive = true;
+            if (sparse) {
+                markWallTiles(walls.wallPlane());
+            }
+        } else if (wallsActive) {
+            Arrays.fill(thingsActive, 0);
+            wallsActive = false;
+        } else {
+            for (int k = 0; k < activeThings; k++) {
+                int r = (int) (activeThingKeys[k] / columns);
+                int c = (int) (activeThingKeys[k] % columns);
+                thingsActive[r * words + (c >>> 6)] = 0;
+            }
+        }
+        activeThings = 0;
+        Arrays.fill(movingRows, 0);
+        if (!objects.isEmpty()) {
+            for (Map.Entry<Long, Thing> entry : objects.entrySet()) {
+                int r = (int) (entry.getKey() / columns);
+                int c = (int) (entry.getKey() % columns);
+                Thing thing = entry.getValue();
+                if (thing.isActive()) {
+                    thingsActive[r * words + (c >>> 6)] |= 1L << c;
+                    if (activeThings == activeThingKeys.length) {
+                        activeThingKeys = Arrays.copyOf(activeThingKeys, Math.max(16, activeThings * 2));
+                    }
+                    activeThingKeys[activeThings++] = entry.getKey();
+                }
+                markTile(r, c);
+                if (thing instanceof ReflectiveCell && !aManufacturing.movesByIntents()) {
+                    movingRows[r >>> 6] |= 1L << r;
+                    moving = true;
+                }
+            }
+        }
+        touchedRow = -2;
+        deciding = true;
+        return moving;
+    }
+
+    /**
+     * Decides the Things of a row one square at a time, reading the lattice as it is at that moment.
+     * @param r The row index.
+     */
+    private void decideRow(int r) {
+        for (int w = 0; w < words; w++) {
+            int i = r * words + w;
+            long objectBits = objectBits(i);
+            if (objectBits == 0) {
+                for (long bits = present[i]; bits != 0; bits &= bits - 1) {
+                    decide(r, (w << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            } else {
+                for (int c = w << 6; c < Math.min(columns, (w + 1) << 6); c++) {
+                    long bit = 1L << c;
+                    if ((objectBits & bit) != 0) {
+                        Thing thing = objects.get(key(r, c));
+                        if (thing != null) {
+                            thing.decide();
+                        }
+                    } else if ((present[i] & bit) != 0) {
+                        decide(r, c);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decides the packed cells of a row 64 at a time and then the object Things of the row.
+     * The parity of the active Things in a 3x3 neighbourhood is the XOR of the nine shifted activity words,
+     * which is the rule of {@link OriginalCell#decide}. Only valid while the rows around have not changed
+     * during the decide phase, and when no Thing of the row moves while deciding.
+     * @param r The row index.
+     */
+    private void decideRowByWords(int r) {
+        int base = r * words;
+        for (int w = 0; w < words; w++) {
+            long parity = horizontal(r - 1, w) ^ horizontal(r, w) ^ horizontal(r + 1, w);
+            next[base + w] = parity & present[base + w];
+        }
+        for (int w = 0; w < words; w++) {
+            int i = base + w;
+            for (long bits = objectBits(i); bits != 0; bits &= bits - 1) {
+                Thing thing = objects.get(key(r, (w << 6) + Long.numberOfTrailingZeros(bits)));
+                if (thing != null) {
+                    thing.decide();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the squares of a word held by object Things other than the sticky walls, which are not in the object map.
+     * @param i The index of the word.
+     * @return The bits of the squares held by object Things.
+     */
+    private long objectBits(int i) {
+        WallIndex walls = aManufacturing.wallIndex();
+        return (walls == null ? things[i] : things[i] & ~walls.wallPlane()[i]);
+    }
+
+    /**
+     * Returns, for every column of a word, the parity of the active Things in that column and the two beside it.
+     * Rows and columns beyond the edges are read from the ones the boundary puts there.
+     * @param r The row index, which may be outside of the lattice.
+     * @param w The word index in the row.
+     * @return The XOR of the activity word shifted west, unshifted and shifted east.
+     */
+    private long horizontal(int r, int w) {
+        if (r < 0 || r >= rows) {
+            if (boundary == AManufacturing.BOUNDED) {
+                return 0;
+            }
+            r = aManufacturing.haloRow(r);
+        }
+        int i = r * words + w;
+        long active = state[i] | thingsActive[i];
+        long west = active << 1;
+        long east = active >>> 1;
+        if (w > 0) {
+            west |= (state[i - 1] | thingsActive[i - 1]) >>> 63;
+        } else if (westColumn >= 0) {
+            west |= activeBit(r, westColumn);
+        }
+        if (w < words - 1) {
+            east |= (state[i + 1] | thingsActive[i + 1]) << 63;
+        } else if (eastColumn >= 0) {
+            east |= activeBit(r, eastColumn) << (columns - 1);
+        }
+        return west ^ active ^ east;
+    }
+
+    /**
+     * Returns the activity bit of a square as the decide phase reads it, 1 if active and 0 otherwise.
+     */
+    private long activeBit(int r, int c) {
+        int i = r * words + (c >>> 6);
+        return ((state[i] | thingsActive[i]) >>> c) & 1;
+    }
+
+    /**
+     * Marks as stuck every packed cell next to or under a StickyWall, as {@link Cell#change} does, 64 squares at a time.
+     * Called during a tic-tac, after the tic-tac count has been incremented.
+     * @param near The row-major bit plane of the squares on or next to a wall.
+     */
+    private void stickAroundWalls(long[] near) {
+        for (int i = 0; i < near.length; i++) {
+            long fresh = present[i] & near[i] & ~stuck[i];
+            if (fresh == 0) {
+                continue;
+            }
+            stuck[i] |= fresh;
+            int r = i / words;
+            for (; fresh != 0; fresh &= fresh - 1) {
+                // It took a single step in this tic-tac, and takes another one now that it is stuck
+                int c = ((i % words) << 6) + Long.numberOfTrailingZeros(fresh);
+                setOffset(r, c, offsetOf(r, c) - ticTacs + 1);
+                aManufacturing.becameStuck(r, c);
+            }
+        }
+    }
+
+    /**
+     * Marks as active the tiles holding a square of sticky wall, since the walls are active Things.
+     * @param walls The row-major bit plane of the squares covered by walls.
+     */
+    private void markWallTiles(long[] walls) {
+        for (int i = 0; i < walls.length; i++) {
+            if (walls[i] != 0) {
+                activeTiles[((i / words) >>> 6) * words + i % words] = true;
+            }
+        }
+    }
+
+    /**
+     * Places a packed cell on an empty square.
+     */
+    private void putPacked(int r, int c, boolean active, boolean willBeActive, boolean isStuck, int steps) {
+        int i = r * words + (c >>> 6);
+        long bit = 1L << c;
+        present[i] |= bit;
+        if (active) {
+            state[i] |= bit;
+        }
+        if (willBeActive) {
+            next[i] |= bit;
+        }
+        if (active || willBeActive) {
+            markTile(r, c);
+        }
+        if (isStuck) {
+            stuck[i] |= bit;
+        }
+        setSteps(r, c, steps);
+    }
+
+    /**
+     * Removes whatever occupies the given square.
+     */
+    private void clear(int r, int c) {
+        int i = r * words + (c >>> 6);
+        long bit = ~(1L << c);
+        if ((things[i] & ~bit) != 0) {
+            objects.remove(key(r, c));
+        }
+        if ((present[i] & ~bit) != 0) {
+            offsets.remove(key(r, c));
+        }
+        present[i] &= bit;
+        state[i] &= bit;
+        next[i] &= bit;
+        stuck[i] &= bit;
+        things[i] &= bit;
+    }
+
+    /**
+     * Records the steps of the packed cell at the given position as an offset from the common count.
+     */
+    private void setSteps(int r, int c, int steps) {
+        setOffset(r, c, steps - ticTacs * (isStuck(r, c) ? 2 : 1));
+    }
+
+    /**
+     * Stores a step offset, forgetting it when it is the one of the fill of its square.
+     */
+    private void setOffset(int r, int c, int offset) {
+        if (offset == fillOffset(r, c)) {
+            offsets.remove(key(r, c));
+        } else {
+            offsets.put(key(r, c), offset);
+        }
+    }
+
+    /**
+     * Returns the key of a position in the object map.
+     */
+    private long key(int r, int c) {
+        return (long) r * columns + c;
+    }
+}
@@ -0,0 +1,172 @@
+package domain;
+
+/**
+ * Advances a lattice of packed original cells by many generations at once.
+ * The rule of OriginalCell is the XOR of the nine cells of a 3x3 neighbourhood, a linear rule where
+ * one generation is {@code (I + W + E)(I + N + S)} applied to the bit plane, with W, E, N and S the shifts
+ * by one square. Squaring in XOR arithmetic cancels the cross terms, so {@code 2^k} generations are just
+ * the XOR of the nine shifts by {@code 2^k} squares, and any number of generations is one such leap per
+ * bit of the number.
+ * <br>
+ * Squares outside of the lattice never become active. That is the same as mirroring the lattice around
+ * an inactive row and column beyond each edge: on the mirrored, periodic plane those squares stay
+ * inactive by symmetry, so the shifts read the mirrored plane.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class ParityLeap {
+    private final int rows, columns, words; //The dimensions of the bit plane
+    private final long[] horizontal; //The plane after the horizontal part of a leap
+    private final long[] mirrored; //A row followed by its mirror, twice
+
+    /**
+     * Creates the buffers to leap bit planes of the given dimensions.
+     * @param rows The number of rows.
+     * @param columns The number of columns.
+     * @param words The number of 64-bit words per row.
+     */
+    ParityLeap(int rows, int columns, int words) {
+        this.rows = rows;
+        this.columns = columns;
+        this.words = words;
+        this.horizontal = new long[rows * words];
+        this.mirrored = new long[(int) ((4L * (columns + 1) + 63) >>> 6) + 1];
+    }
+
+    /**
+     * Advances the states of a full lattice of original cells by the given number of generations.
+     * @param state The row-major bit plane of the states, changed in place.
+     * @param generations The number of generations.
+     */
+    void leap(long[] state, long generations) {
+        for (int k = 0; k < 63 && (generations >>> k) != 0; k++) {
+            if (((generations >>> k) & 1) != 0) {
+                leapByPowerOfTwo(state, 1L << k);
+            }
+        }
+    }
+
+    /**
+     * Advances the states by a power of two of generations, as the XOR of the nine shifts by that distance.
+     * @param state The row-major bit plane of the states, changed in place.
+     * @param distance The number of generations, a power of two.
+     */
+    private void leapByPowerOfTwo(long[] state, long distance) {
+        int periodColumns = 2 * (columns + 1);
+        int periodRows = 2 * (rows + 1);
+        int dc = (int) (distance % periodColumns);
+        int dr = (int) (distance % periodRows);
+        long last = (columns % 64 == 0 ? -1L : (1L << columns) - 1);
+
+        // Horizontal part: every square with the squares dc columns to the west and to the east
+        for (int r = 0; r < rows; r++) {
+            mirrorRow(state, r * words);
+            for (int w = 0; w < words; w++) {
+                long east = bitsAt(mirrored, dc + (w << 6));
+                long west = bitsAt(mirrored, periodColumns - dc + (w << 6));
+                long bits = state[r * words + w] ^ east ^ west;
+                horizontal[r * words + w] = (w == words - 1 ? bits & last : bits);
+            }
+        }
+        // Vertical part: every square with the squares dr rows to the north and to the south
+        for (int r = 0; r < rows; r++) {
+            int north = mirrorIndex(r - dr, periodRows, rows);
+            int south = mirrorIndex(r + dr, periodRows, rows);
+            for (int w = 0; w < words; w++) {
+                long bits = horizontal[r * words + w];
+                if (north >= 0) {
+                    bits ^= horizontal[north * words + w];
+                }
+                if (south >= 0) {
+                    bits ^= horizontal[south * words + w];
+                }
+                state[r * words + w] = bits;
+            }
+        }
+    }
+
+    /**
+     * Writes into the mirrored buffer a row of the plane, an inactive square, the row reversed and another
+     * inactive square, twice, so that any shift of the row can be read without wrapping around.
+     * @param state The row-major bit plane.
+     * @param base The index of the first word of the row.
+     */
+    private void mirrorRow(long[] state, int base) {
+        int period = 2 * (columns + 1);
+        java.util.Arrays.fill(mirrored, 0);
+        for (int w = 0; w < words; w++) {
+            long bits = state[base + w];
+            long reversed = reversedWord(state, base, w);
+            orWordAt(bits, w << 6);
+            orWordAt(reversed, columns + 1 + (w << 6));
+            orWordAt(bits, period + (w << 6));
+            orWordAt(reversed, period + columns + 1 + (w << 6));
+        }
+    }
+
+    /**
+     * Returns a word of the row reversed: bit {@code j} is column {@code columns - 1 - (64 * w + j)} of the row,
+     * or zero beyond the first column.
+     * @param state The row-major bit plane.
+     * @param base The index of the first word of the row.
+     * @param w The index of the word in the reversed row.
+     */
+    private long reversedWord(long[] state, int base, int w) {
+        int low = columns - 64 - (w << 6);
+        long window = (low >= 0 ? bitsAt(state, base, words, low) : bitsAt(state, base, words, 0) << -low);
+        return Long.reverse(window);
+    }
+
+    /**
+     * Adds a word to the mirrored buffer at the given bit position.
+     */
+    private void orWordAt(long bits, int position) {
+        int w = position >>> 6;
+        int b = position & 63;
+        mirrored[w] |= bits << b;
+        if (b != 0) {
+            mirrored[w + 1] |= bits >>> (64 - b);
+        }
+    }
+
+    /**
+     * Returns the 64 bits of a buffer starting at the given bit position, with zeros beyond the buffer.
+     */
+    private static long bitsAt(long[] buffer, int position) {
+        return bitsAt(buffer, 0, buffer.length, position);
+    }
+
+    /**
+     * Returns the 64 bits of a run of words starting at the given bit position, with zeros beyond the run.
+     */
+    private static long bitsAt(long[] buffer, int base, int length, int position) {
+        int w = position >>> 6;
+        int b = position & 63;
+        long bits = (w < length ? buffer[base + w] >>> b : 0);
+        if (b != 0 && w + 1 < length) {
+            bits |= buffer[base + w + 1] << (64 - b);
+        }
+        return bits;
+    }
+
+    /**
+     * Maps a row of the mirrored, periodic plane to the row of the lattice it copies.
+     * @param r The row of the mirrored plane.
+     * @param period The period of the mirrored plane, twice the rows plus two.
+     * @param rows The number of rows of the lattice.
+     * @return The row of the lattice, or -1 for the inactive rows between the copies.
+     */
+    private static int mirrorIndex(int r, int period, int rows) {
+        int j = ((r % period) + period) % period;
+        if (j < rows) {
+            return j;
+        }
+        if (j == rows || j == period - 1) {
+            return -1;
+        }
+        return period - 2 - j;
+    }
+}
@@ -0,0 +1,235 @@
+package domain;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a pattern of Things into a lattice as it streams, so that patterns far larger than the memory can seed it.
+ * <br>
+ * Two formats are read, told apart by their first line:
+ * <ul>
+ * <li>Run length encoded, as the RLE files of cellular automata: optional {@code #} comment lines and an
+ * {@code x = ..., y = ...} header line, then runs written as an optional count and a tag, with {@code $} ending a row
+ * and {@code !} ending the pattern.</li>
+ * <li>Plain text: optional {@code !} comment lines, then one line per row and one character per square.</li>
+ * </ul>
+ * Both formats share the tags: {@code b} or {@code .} for an inactive original cell and {@code o}, {@code O} or
+ * {@code *} for an active one, and the extension {@code E} for an empty square, {@code C}, {@code T} and {@code R}
+ * for an active cell, tourist cell and reflective cell ({@code c}, {@code t} and {@code r} when inactive),
+ * {@code P} for poison and {@code W} for a square of sticky wall.
+ * The squares the pattern does not mention keep what they had, and the squares out of the lattice are skipped.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class PatternReader {
+    private static final int BUFFER = 1 << 16;
+
+    private final AManufacturing am; //The lattice the pattern is read into
+    private final Reader in; //The pattern
+    private final char[] buffer = new char[BUFFER]; //The characters read and not consumed yet
+    private int length, next; //The characters in the buffer and the next one to consume
+    private long line = 1; //The line of the pattern being read
+    private final long top, left; //The position of the pattern in the lattice
+    private long row, column; //The square of the pattern the next tag is for
+
+    /**
+     * Creates the reader of a pattern.
+     */
+    private PatternReader(AManufacturing am, Reader in, int top, int left) {
+        this.am = am;
+        this.in = in;
+        this.top = top;
+        this.left = left;
+    }
+
+    /**
+     * Reads a pattern into a lattice.
+     * @param am The lattice, which must not be performing a tic-tac.
+     * @param in The pattern, read to its end or to the end of the pattern.
+     * @param top The row of the lattice where the first row of the pattern goes.
+     * @param left The column of the lattice where the first column of the pattern goes.
+     * @throws IOException if the pattern cannot be read or is not well formed.
+     */
+    static void read(AManufacturing am, Reader in, int top, int left) throws IOException {
+        new PatternReader(am, in, top, left).read();
+    }
+
+    /**
+     * Tells the format from the first character that is not blank, and reads the pattern.
+     */
+    private void read() throws IOException {
+        int ch = nextChar();
+        while (ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n') {
+            if (ch == '\n') {
+                line++;
+            }
+            ch = nextChar();
+        }
+        if (ch == '#' || ch == 'x') {
+            readRunLengths(ch);
+        } else {
+            readPlainText(ch);
+        }
+    }
+
+    /**
+     * Reads a run length encoded pattern.
+     * @param ch The first character of the pattern.
+     */
+    private void readRunLengths(int ch) throws IOException {
+        boolean lineStart = true;
+        boolean body = false;
+        long count = 0;
+        for (; ch != -1 && ch != '!'; ch = nextChar()) {
+            if (lineStart && !body && (ch == '#' || ch == 'x')) {
+                skipLine(); // A comment or the header
+                continue;
+            }
+            lineStart = (ch == '\n');
+            if (ch >= '0' && ch <= '9') {
+                if (count > (Long.MAX_VALUE - 9) / 10) {
+                    throw error("The count of a run is too large");
+                }
+                count = count * 10 + (ch - '0');
+                body = true;
+            } else if (ch == '\n') {
+                line++;
+            } else if (ch == ' ' || ch == '\t' || ch == '\r') {
+                continue;
+            } else if (ch == '$') {
+                row += Math.max(count, 1);
+                column = 0;
+                count = 0;
+                body = true;
+            } else {
+                place((char) ch, Math.max(count, 1));
+                count = 0;
+                body = true;
+            }
+        }
+        if (count != 0) {
+            throw error("A count without a tag");
+        }
+    }
+
+    /**
+     * Reads a plain text pattern.
+     * @param ch The first character of the pattern.
+     */
+    private void readPlainText(int ch) throws IOException {
+        boolean lineStart = true;
+        for (; ch != -1; ch = nextChar()) {
+            if (lineStart && ch == '!') {
+                skipLine(); // A comment
+                continue;
+            }
+            lineStart = (ch == '\n');
+            if (ch == '\n') {
+                line++;
+                row++;
+                column = 0;
+            } else if (ch != '\r') {
+                place((char) ch, 1);
+            }
+        }
+    }
+
+    /**
+     * Places a run of the Thing of a tag, from the current square of the pattern, and moves past the run.
+     * @param tag The tag of the Thing.
+     * @param run The number of squares of the run.
+     */
+    private void place(char tag, long run) throws IOException {
+        if ("bo.O*ECcTtRrPW".indexOf(tag) < 0) {
+            throw error("Unknown tag '" + tag + "'");
+        }
+        long r = top + row;
+        long from = Math.max(left + column, 0);
+        long to = Math.min(left + column + run, am.getColumns());
+        column += run;
+        if (r < 0 || r >= am.getRows()) {
+            return;
+        }
+        for (long c = from; c < to; c++) {
+            place(tag, (int) r, (int) c);
+        }
+    }
+
+    /**
+     * Places the Thing of a tag at a square of the lattice.
+     */
+    private void place(char tag, int r, int c) {
+        switch (tag) {
+            case 'b': case '.':
+                placeOriginal(r, c, false);
+                break;
+            case 'o': case 'O': case '*':
+                placeOriginal(r, c, true);
+                break;
+            case 'E':
+                am.setThing(r, c, null);
+                break;
+            case 'C': case 'c':
+                new Cell(am, r, c, tag == 'C');
+                break;
+            case 'T': case 't':
+                new TouristCell(am, r, c, tag == 'T');
+                break;
+            case 'R': case 'r':
+                new ReflectiveCell(am, r, c, tag == 'R');
+                break;
+            case 'P':
+                new Poison(am, r, c);
+                break;
+            default:
+                StickyWall.place(am, r, c);
+        }
+    }
+
+    /**
+     * Places an original cell, keeping the one already there if any, with its steps and whether it is stuck.
+     */
+    private void placeOriginal(int r, int c, boolean active) {
+        Thing thing = am.getThing(r, c);
+        if (thing instanceof OriginalCell) {
+            ((OriginalCell) thing).changeState(active);
+        } else {
+            am.putOriginal(r, c, active, false);
+        }
+    }
+
+    /**
+     * Skips the rest of the line.
+     */
+    private void skipLine() throws IOException {
+        int ch = nextChar();
+        while (ch != -1 && ch != '\n') {
+            ch = nextChar();
+        }
+        line++;
+    }
+
+    /**
+     * Returns the next character of the pattern, or -1 at its end.
+     */
+    private int nextChar() throws IOException {
+        if (next == length) {
+            length = Math.max(in.read(buffer, 0, BUFFER), 0);
+            next = 0;
+            if (length == 0) {
+                return -1;
+            }
+        }
+        return buffer[next++];
+    }
+
+    /**
+     * Returns the error of a pattern that is not well formed.
+     */
+    private IOException error(String message) {
+        return new IOException(message + " at line " + line + " of the pattern");
+    }
+}
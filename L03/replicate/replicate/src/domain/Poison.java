@@ -3,7 +3,7 @@ package domain;
 import java.awt.Color;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents a Poison artefact in the manufacturing lattice.
@@ -25,10 +25,23 @@ public class Poison extends Artefact implements Thing {
 
     /**
      * Creates a new Poison artefact, starting with a random color from the rainbow colors.
+     * The color does not depend on the seed of any lattice; use {@link #Poison(AManufacturing, int, int)} for runs
+     * that must be repeatable.
      */
     public Poison() {
-        colorIndex = new Random().nextInt(RAINBOW_COLORS.size());
-        color = RAINBOW_COLORS.get(colorIndex);
+        setColorIndex(ThreadLocalRandom.current().nextInt(RAINBOW_COLORS.size()));
+    }
+
+    /**
+     * Creates a new Poison artefact at the given position of a lattice, starting with a color drawn from
+     * the seed of the lattice.
+     * @param am The manufacturing lattice where the poison is placed.
+     * @param row The row index of the poison.
+     * @param column The column index of the poison.
+     */
+    public Poison(AManufacturing am, int row, int column) {
+        setColorIndex(am.randomAt(row, column).nextInt(RAINBOW_COLORS.size()));
+        am.setThing(row, column, this);
     }
 
     /**
@@ -40,6 +53,23 @@ public class Poison extends Artefact implements Thing {
         // Poison doesn't have a next state in the traditional sense, so this can be left empty
     }
 
+    /**
+     * Returns the index of the current color in the rainbow.
+     * @return The index of the color.
+     */
+    int getColorIndex() {
+        return colorIndex;
+    }
+
+    /**
+     * Sets the current color by its index in the rainbow, as when the poison is restored from a file.
+     * @param colorIndex The index of the color.
+     */
+    void setColorIndex(int colorIndex) {
+        this.colorIndex = Math.floorMod(colorIndex, RAINBOW_COLORS.size());
+        this.color = RAINBOW_COLORS.get(this.colorIndex);
+    }
+
     /**
      * Changes the color of the Poison artefact to the next one in the rainbow sequence.
      */
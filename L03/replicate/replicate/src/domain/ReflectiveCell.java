@@ -1,7 +1,6 @@
 package domain;
 
-import java.awt.Color;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * The ReflectiveCell class represents a specialized type of cell within a manufacturing simulation environment.
@@ -16,8 +15,6 @@ import java.util.Random;
 public class ReflectiveCell extends Cell {
     private int directionRow;
     private int directionCol;
-    private AManufacturing aManufacturing;
-    private static final Random RANDOM = new Random();
 
     /**
      * Constructs a ReflectiveCell with the given parameters.
@@ -28,12 +25,12 @@ public class ReflectiveCell extends Cell {
      * @param active  Whether the cell is initially active.
      */
     public ReflectiveCell(AManufacturing am, int row, int column, boolean active) {
-        super(am, row, column, active);
-        this.aManufacturing = am;
-        // Initialize with a random direction (-1, 0, or 1)
-        this.directionRow = RANDOM.nextInt(3) - 1;
-        this.directionCol = RANDOM.nextInt(3) - 1;
-        updateColor();
+        super(am.cellKind(CellKind.REFLECTIVE), row, column, active);
+        // Initialize with a random direction (-1, 0, or 1), drawn from the seed of the lattice
+        SplittableRandom random = am.randomAt(row, column);
+        this.directionRow = random.nextInt(3) - 1;
+        this.directionCol = random.nextInt(3) - 1;
+        place();
     }
 
     /**
@@ -44,19 +41,21 @@ public class ReflectiveCell extends Cell {
     public void decide() {
         int newRow = row + directionRow;
         int newCol = column + directionCol;
+        if (kind.aManufacturing.getBoundary() == AManufacturing.TORUS) {
+            // Leave through an edge and come back through the opposite one
+            newRow = kind.aManufacturing.haloRow(newRow);
+            newCol = kind.aManufacturing.haloColumn(newCol);
+        }
 
         // Check if the cell can move in the current direction
-        if (aManufacturing.inLatice(newRow, newCol)) {
-            Thing target = aManufacturing.getThing(newRow, newCol);
+        if (kind.aManufacturing.inLatice(newRow, newCol)) {
+            Thing target = kind.aManufacturing.getThing(newRow, newCol);
             if (target == null) {
                 // Move to the empty position
-                aManufacturing.setThing(row, column, null);
-                row = newRow;
-                column = newCol;
-                aManufacturing.setThing(row, column, this);
+                moveTo(newRow, newCol);
             } else if (target instanceof Poison) {
                 // If the target is Poison, deactivate the cell
-                nextState = INACTIVE;
+                nextActive = false;
             } else if (target instanceof StickyWall) {
                 // Logic for StickyWall is not yet implemented
             } else {
@@ -70,20 +69,37 @@ public class ReflectiveCell extends Cell {
     }
 
     /**
-     * Changes the state of the cell and updates its color accordingly.
+     * Bounces back when another Thing wins the position the cell wanted to move to.
      */
     @Override
-    public void change() {
-        super.change();
-        updateColor();
+    protected void moveBlocked() {
+        reverseDirection();
+    }
+
+    /**
+     * Returns the row offset of the direction of the cell.
+     * @return -1, 0 or 1.
+     */
+    int getDirectionRow() {
+        return directionRow;
+    }
+
+    /**
+     * Returns the column offset of the direction of the cell.
+     * @return -1, 0 or 1.
+     */
+    int getDirectionColumn() {
+        return directionCol;
     }
 
     /**
-     * Updates the color of the cell based on its current state.
-     * Active cells are colored green, while inactive cells are colored gray.
+     * Sets the direction of the cell, as when it is restored from a file.
+     * @param directionRow The row offset, -1, 0 or 1.
+     * @param directionColumn The column offset, -1, 0 or 1.
      */
-    private void updateColor() {
-        color = isActive() ? Color.GREEN : Color.GRAY;
+    void setDirection(int directionRow, int directionColumn) {
+        this.directionRow = directionRow;
+        this.directionCol = directionColumn;
     }
 
     /**
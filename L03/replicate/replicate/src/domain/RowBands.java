@@ -0,0 +1,73 @@
+package domain;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the rows of a lattice into bands that are processed in parallel on a ForkJoinPool.
+ * Every band is a contiguous range of rows, so work that only writes to its own rows
+ * gives the same result whatever the number of threads.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class RowBands extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Work done on a band of rows.
+     */
+    interface Band {
+        /**
+         * Processes the rows of a band.
+         * @param from The first row of the band.
+         * @param to The row after the last row of the band.
+         */
+        void run(int from, int to);
+    }
+
+    private final Band band; //The work done on every band
+    private final int from, to; //The rows still to be split
+    private final int rowsPerBand; //The number of rows under which a band is not split anymore
+
+    /**
+     * Creates the task processing the given rows.
+     */
+    private RowBands(Band band, int from, int to, int rowsPerBand) {
+        this.band = band;
+        this.from = from;
+        this.to = to;
+        this.rowsPerBand = rowsPerBand;
+    }
+
+    /**
+     * Processes the rows {@code [0, rows)} in bands on the given pool, or serially when there is no pool.
+     * @param pool The pool running the bands, or null to process every row on the calling thread.
+     * @param rows The number of rows.
+     * @param band The work done on every band.
+     */
+    static void run(ForkJoinPool pool, int rows, Band band) {
+        if (pool == null || rows < 2) {
+            band.run(0, rows);
+        } else {
+            // A few bands per thread so that a slow band does not leave the other threads idle
+            int rowsPerBand = Math.max(1, rows / (pool.getParallelism() * 4));
+            pool.invoke(new RowBands(band, 0, rows, rowsPerBand));
+        }
+    }
+
+    /**
+     * Splits the rows in two halves until they are small enough, and processes them.
+     */
+    @Override
+    protected void compute() {
+        if (to - from <= rowsPerBand) {
+            band.run(from, to);
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new RowBands(band, from, middle, rowsPerBand), new RowBands(band, middle, to, rowsPerBand));
+        }
+    }
+}
@@ -14,8 +14,8 @@ import java.awt.Color;
 public class StickyWall implements Thing {
 
     private AManufacturing aManufacturing; //Reference to the manufacturing environment where the wall resides
-    private int wallRow; //The row where the StickyWall is located
-    private int startColumn, endColumn; //The start and end columns defining the extent of the StickyWall
+    private int startRow, startColumn; //The square where the StickyWall starts
+    private int endRow, endColumn; //The square where the StickyWall ends
     private Color color; //Color of the wall
 
     /**
@@ -25,17 +25,82 @@ public class StickyWall implements Thing {
      * @param row The row where the StickyWall is placed.
      */
     public StickyWall(AManufacturing am, int row) {
+        this(am, row, 0, row, am.getColumns() - 1);
+    }
+
+    /**
+     * Constructs a StickyWall that covers a single square of a row, as when a wall is rebuilt square by square.
+     *
+     * @param am     The manufacturing environment where the wall is created.
+     * @param row    The row where the StickyWall is placed.
+     * @param column The column of the only square of the StickyWall.
+     */
+    StickyWall(AManufacturing am, int row, int column) {
+        this(am, row, column, row, column);
+    }
+
+    /**
+     * Constructs a StickyWall along the segment between two squares, in any orientation: horizontal,
+     * vertical or slanted. The squares of a slanted segment are the ones closest to the line between its ends,
+     * each touching the previous one by a side or a corner.
+     *
+     * @param am          The manufacturing environment where the wall is created.
+     * @param startRow    The row where the StickyWall starts.
+     * @param startColumn The column where the StickyWall starts.
+     * @param endRow      The row where the StickyWall ends.
+     * @param endColumn   The column where the StickyWall ends.
+     * @throws IllegalArgumentException if an end of the segment is outside of the lattice.
+     */
+    public StickyWall(AManufacturing am, int startRow, int startColumn, int endRow, int endColumn) {
+        if (!am.inLatice(startRow, startColumn) || !am.inLatice(endRow, endColumn)) {
+            throw new IllegalArgumentException("The wall from (" + startRow + "," + startColumn + ") to ("
+                + endRow + "," + endColumn + ") is outside of the lattice");
+        }
         this.aManufacturing = am;
-        this.wallRow = row;
+        this.startRow = startRow;
+        this.startColumn = startColumn;
+        this.endRow = endRow;
+        this.endColumn = endColumn;
         this.color = Color.BLACK;
 
-        int size = am.getSize();
-        this.startColumn = 0;      // Start at the first column
-        this.endColumn = size - 1; // End at the last column
+        // Place the StickyWall on the squares of the segment, with Bresenham's line algorithm
+        int dr = Math.abs(endRow - startRow), dc = Math.abs(endColumn - startColumn);
+        int stepRow = (startRow < endRow ? 1 : -1), stepColumn = (startColumn < endColumn ? 1 : -1);
+        int error = dc - dr;
+        int r = startRow, c = startColumn;
+        while (true) {
+            aManufacturing.setThing(r, c, this);
+            if (r == endRow && c == endColumn) {
+                break;
+            }
+            int twice = 2 * error;
+            if (twice > -dr) {
+                error -= dr;
+                c += stepColumn;
+            }
+            if (twice < dc) {
+                error += dc;
+                r += stepRow;
+            }
+        }
+    }
 
-        // Place the StickyWall on the selected row
-        for (int c = startColumn; c <= endColumn; c++) {
-            aManufacturing.setThing(wallRow, c, this);
+    /**
+     * Places a square of sticky wall, joining the wall of the square at its left or at its right if there is one.
+     *
+     * @param am     The manufacturing environment where the square is placed.
+     * @param row    The row of the square.
+     * @param column The column of the square.
+     */
+    static void place(AManufacturing am, int row, int column) {
+        Thing left = (column > 0 ? am.getThing(row, column - 1) : null);
+        Thing right = (column < am.getColumns() - 1 ? am.getThing(row, column + 1) : null);
+        if (left instanceof StickyWall) {
+            am.setThing(row, column, left);
+        } else if (right instanceof StickyWall) {
+            am.setThing(row, column, right);
+        } else {
+            new StickyWall(am, row, column);
         }
     }
 
@@ -45,7 +110,43 @@ public class StickyWall implements Thing {
      * @return The row of the StickyWall.
      */
     public int getWallRow() {
-        return wallRow;
+        return startRow;
+    }
+
+    /**
+     * Gets the row where the StickyWall starts.
+     *
+     * @return The row of the first square of the StickyWall.
+     */
+    public int getStartRow() {
+        return startRow;
+    }
+
+    /**
+     * Gets the column where the StickyWall starts.
+     *
+     * @return The column of the first square of the StickyWall.
+     */
+    public int getStartColumn() {
+        return startColumn;
+    }
+
+    /**
+     * Gets the row where the StickyWall ends.
+     *
+     * @return The row of the last square of the StickyWall.
+     */
+    public int getEndRow() {
+        return endRow;
+    }
+
+    /**
+     * Gets the column where the StickyWall ends.
+     *
+     * @return The column of the last square of the StickyWall.
+     */
+    public int getEndColumn() {
+        return endColumn;
     }
 
     /**
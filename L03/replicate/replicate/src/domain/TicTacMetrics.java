@@ -0,0 +1,336 @@
+package domain;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Measures the tic-tacs of an AManufacturing: the latency of its decide and change phases, the Things of every type
+ * it evaluates, its active cells, its moves and the cells that become stuck.
+ * <br>
+ * The metrics are only taken while enabled with {@link AManufacturing#setMetricsEnabled(boolean)}; otherwise a tic-tac
+ * only checks one field per phase. Running with {@code -Ddomain.metrics.off=true} makes the checks constant, so the
+ * JIT leaves the instrumentation out of the compiled tic-tacs altogether.
+ * Counters can be updated from the threads of a parallel tic-tac and read from any thread.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public final class TicTacMetrics implements TicTacMetricsMBean {
+    /** Whether the metrics can be enabled at all, {@code false} when {@code domain.metrics.off} is set */
+    public static final boolean AVAILABLE = !Boolean.getBoolean("domain.metrics.off");
+
+    private final Histogram decide = new Histogram(); //The latency of the decide phases
+    private final Histogram change = new Histogram(); //The latency of the change phases
+    private final LongAdder originalCells = new LongAdder(), cells = new LongAdder(), touristCells = new LongAdder();
+    private final LongAdder reflectiveCells = new LongAdder(), poisons = new LongAdder(), stickyWalls = new LongAdder();
+    private final LongAdder active = new LongAdder(); //The active cells counted by the current tic-tac
+    private final LongAdder moves = new LongAdder(), stuck = new LongAdder();
+    private volatile long activeCells; //The active cells after the last tic-tac
+    private ObjectName name; //The name the metrics are registered with, or null
+
+    /**
+     * Creates empty metrics.
+     */
+    TicTacMetrics() {
+    }
+
+    /**
+     * Records the latency of the phases of a tic-tac.
+     * @param decideNanos The nanoseconds spent deciding.
+     * @param changeNanos The nanoseconds spent changing.
+     */
+    void recordTicTac(long decideNanos, long changeNanos) {
+        decide.record(decideNanos);
+        change.record(changeNanos);
+    }
+
+    /**
+     * Adds the Things evaluated by a tic-tac, or by a band of its rows.
+     */
+    void addEvaluated(long originals, long plain, long tourists, long reflectives, long poison, long walls) {
+        originalCells.add(originals);
+        cells.add(plain);
+        touristCells.add(tourists);
+        reflectiveCells.add(reflectives);
+        poisons.add(poison);
+        stickyWalls.add(walls);
+    }
+
+    /**
+     * Starts counting the active cells after a tic-tac.
+     */
+    void beginActive() {
+        active.reset();
+    }
+
+    /**
+     * Adds active cells after a tic-tac, found in a band of rows.
+     */
+    void addActive(long count) {
+        active.add(count);
+    }
+
+    /**
+     * Publishes the active cells counted after a tic-tac.
+     */
+    void endActive() {
+        activeCells = active.sum();
+    }
+
+    /**
+     * Counts a move.
+     */
+    void moved() {
+        moves.increment();
+    }
+
+    /**
+     * Counts a cell that became stuck.
+     */
+    void stuck() {
+        stuck.increment();
+    }
+
+    /**
+     * Returns the histogram of the latency of the decide phases.
+     * @return the histogram, in nanoseconds.
+     */
+    public Histogram getDecideLatency() {
+        return decide;
+    }
+
+    /**
+     * Returns the histogram of the latency of the change phases.
+     * @return the histogram, in nanoseconds.
+     */
+    public Histogram getChangeLatency() {
+        return change;
+    }
+
+    @Override
+    public long getTicTacs() {
+        return decide.getCount();
+    }
+
+    @Override
+    public double getDecideMeanNanos() {
+        return decide.getMean();
+    }
+
+    @Override
+    public long getDecideP99Nanos() {
+        return decide.getPercentile(99);
+    }
+
+    @Override
+    public long getDecideMaxNanos() {
+        return decide.getMax();
+    }
+
+    @Override
+    public double getChangeMeanNanos() {
+        return change.getMean();
+    }
+
+    @Override
+    public long getChangeP99Nanos() {
+        return change.getPercentile(99);
+    }
+
+    @Override
+    public long getChangeMaxNanos() {
+        return change.getMax();
+    }
+
+    @Override
+    public long getEvaluatedOriginalCells() {
+        return originalCells.sum();
+    }
+
+    @Override
+    public long getEvaluatedCells() {
+        return cells.sum();
+    }
+
+    @Override
+    public long getEvaluatedTouristCells() {
+        return touristCells.sum();
+    }
+
+    @Override
+    public long getEvaluatedReflectiveCells() {
+        return reflectiveCells.sum();
+    }
+
+    @Override
+    public long getEvaluatedPoisons() {
+        return poisons.sum();
+    }
+
+    @Override
+    public long getEvaluatedStickyWalls() {
+        return stickyWalls.sum();
+    }
+
+    @Override
+    public long getActiveCells() {
+        return activeCells;
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getStuckCells() {
+        return stuck.sum();
+    }
+
+    @Override
+    public void reset() {
+        decide.reset();
+        change.reset();
+        for (LongAdder counter : new LongAdder[] {originalCells, cells, touristCells, reflectiveCells, poisons, stickyWalls, moves, stuck}) {
+            counter.reset();
+        }
+        activeCells = 0;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server, as {@code domain:type=TicTacMetrics,name=<name>}.
+     * @param id The name that tells these metrics apart from the ones of other lattices.
+     * @throws JMException if the metrics cannot be registered, as when the name is taken.
+     */
+    public synchronized void register(String id) throws JMException {
+        unregister();
+        ObjectName objectName = new ObjectName("domain:type=TicTacMetrics,name=" + ObjectName.quote(id));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        name = objectName;
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if they were registered.
+     * @throws JMException if the metrics cannot be removed.
+     */
+    public synchronized void unregister() throws JMException {
+        if (name != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            name = null;
+        }
+    }
+
+    /**
+     * A histogram of latencies with eight buckets per power of two, so that its percentiles are within 12.5%.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKETS = 8;
+        private final long[] buckets = new long[SUB_BUCKETS * 62]; //The number of values of every bucket
+        private long count, sum, max; //The number of values, their sum and the largest one
+
+        /**
+         * Creates an empty histogram.
+         */
+        Histogram() {
+        }
+
+        /**
+         * Records a value.
+         * @param value The value, clamped to zero if negative.
+         */
+        synchronized void record(long value) {
+            value = Math.max(0, value);
+            buckets[bucket(value)]++;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        /**
+         * Returns the number of values recorded.
+         * @return the count.
+         */
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the mean of the values recorded.
+         * @return the mean, 0 if none was recorded.
+         */
+        public synchronized double getMean() {
+            return (count == 0 ? 0 : (double) sum / count);
+        }
+
+        /**
+         * Returns the largest value recorded.
+         * @return the maximum, 0 if none was recorded.
+         */
+        public synchronized long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns a value that the given percentage of the recorded values do not exceed.
+         * @param percentile The percentage, between 0 and 100.
+         * @return the upper bound of the bucket holding the percentile, at most the maximum; 0 if none was recorded.
+         * @throws IllegalArgumentException if the percentage is not between 0 and 100.
+         */
+        public synchronized long getPercentile(double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("The percentile must be between 0 and 100: " + percentile);
+            }
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(rank, 1)) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Forgets every value.
+         */
+        synchronized void reset() {
+            java.util.Arrays.fill(buckets, 0);
+            count = 0;
+            sum = 0;
+            max = 0;
+        }
+
+        /**
+         * Returns the bucket of a value: the values under eight have their own, and every larger power of two
+         * is split in eight by the three bits after its highest one.
+         */
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            return (exponent - 2) * SUB_BUCKETS + (int) ((value >>> (exponent - 3)) & (SUB_BUCKETS - 1));
+        }
+
+        /**
+         * Returns the largest value of a bucket.
+         */
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + 2;
+            long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 3);
+            return lower + (1L << (exponent - 3)) - 1;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package domain;
+
+/**
+ * The management interface of {@link TicTacMetrics}, so that a running lattice can be watched from a JMX console.
+ * Latencies are in nanoseconds; percentiles are the upper bound of their histogram bucket, within 12.5%.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public interface TicTacMetricsMBean {
+    /** @return the number of tic-tacs measured. */
+    long getTicTacs();
+
+    /** @return the mean latency of the decide phase. */
+    double getDecideMeanNanos();
+
+    /** @return the 99th percentile of the latency of the decide phase. */
+    long getDecideP99Nanos();
+
+    /** @return the longest decide phase. */
+    long getDecideMaxNanos();
+
+    /** @return the mean latency of the change phase. */
+    double getChangeMeanNanos();
+
+    /** @return the 99th percentile of the latency of the change phase. */
+    long getChangeP99Nanos();
+
+    /** @return the longest change phase. */
+    long getChangeMaxNanos();
+
+    /** @return the original cells evaluated by all the tic-tacs. */
+    long getEvaluatedOriginalCells();
+
+    /** @return the plain cells evaluated by all the tic-tacs. */
+    long getEvaluatedCells();
+
+    /** @return the tourist cells evaluated by all the tic-tacs. */
+    long getEvaluatedTouristCells();
+
+    /** @return the reflective cells evaluated by all the tic-tacs. */
+    long getEvaluatedReflectiveCells();
+
+    /** @return the poisons evaluated by all the tic-tacs. */
+    long getEvaluatedPoisons();
+
+    /** @return the squares of sticky wall evaluated by all the tic-tacs. */
+    long getEvaluatedStickyWalls();
+
+    /** @return the active cells after the last tic-tac. */
+    long getActiveCells();
+
+    /** @return the moves performed by all the tic-tacs. */
+    long getMoves();
+
+    /** @return the cells that became stuck during all the tic-tacs. */
+    long getStuckCells();
+
+    /**
+     * Forgets everything measured so far.
+     */
+    void reset();
+}
@@ -0,0 +1,18 @@
+package domain;
+
+/**
+ * Observes an AManufacturing while it performs many tic-tacs in a row.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public interface TicTacObserver {
+    /**
+     * Looks at the lattice after some tic-tacs.
+     * @param aManufacturing The lattice being advanced.
+     * @param generation The number of tic-tacs performed by the lattice so far.
+     */
+    void observe(AManufacturing aManufacturing, long generation);
+}
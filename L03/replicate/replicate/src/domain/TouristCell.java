@@ -1,7 +1,5 @@
 package domain;
 
-import java.awt.Color;
-
 /**
  * Represents a tourist cell in the manufacturing lattice.
  * The tourist cell moves towards the center of the lattice or the origin, depending on its state.
@@ -12,25 +10,18 @@ import java.awt.Color;
  */
 
 public class TouristCell extends Cell {
-    private int centerRow, centerCol;
-    private AManufacturing aManufacturing;
-    private int directionRow = 0, directionCol = 0;
-    private int nextRow, nextCol;
+    private int nextRow, nextCol; //The position the cell moves to when it changes
     
     /**
      * Creates a new tourist cell at the specified row and column in the given manufacturing lattice.
-     * Sets the initial color of the cell based on its active state.
      * @param am The manufacturing lattice to which the cell belongs.
      * @param row The row index of the cell.
      * @param column The column index of the cell.
      * @param active The initial state of the cell, active or inactive.
      */
     public TouristCell(AManufacturing am, int row, int column, boolean active) {
-        super(am, row, column, active);
-        this.aManufacturing = am;
-        this.centerRow = am.getSize() / 2;
-        this.centerCol = am.getSize() / 2;
-        updateColor();
+        super(am.cellKind(CellKind.TOURIST), row, column, active);
+        place();
     }
 
     /**
@@ -50,20 +41,20 @@ public class TouristCell extends Cell {
         }
         
         if (isActive()) {
-            int dr = Integer.compare(centerRow, getRow());
-            int dc = Integer.compare(centerCol, getColumn());
+            int dr = Integer.compare(kind.aManufacturing.getRows() / 2, getRow());
+            int dc = Integer.compare(kind.aManufacturing.getColumns() / 2, getColumn());
 
-            if (neighborIsEmpty(dr, dc) && !(aManufacturing.getThing(row + dr, column + dc) instanceof Poison)) {
+            if (neighborIsEmpty(dr, dc) && !(kind.aManufacturing.getThing(row + dr, column + dc) instanceof Poison)) {
                 nextRow = row + dr;
                 nextCol = column + dc;
-            } else if (aManufacturing.getThing(row + dr, column + dc) instanceof Poison) {
+            } else if (kind.aManufacturing.getThing(row + dr, column + dc) instanceof Poison) {
                 // If there is Poison in the intended direction, become inactive
-                nextState = INACTIVE;
+                nextActive = false;
                 nextRow = row;
                 nextCol = column;
             } else {
                 // Unable to move, stay in place and become inactive
-                nextState = INACTIVE;
+                nextActive = false;
                 nextRow = row;
                 nextCol = column;
             }
@@ -71,49 +62,55 @@ public class TouristCell extends Cell {
             int dr = Integer.compare(0, getRow());
             int dc = Integer.compare(0, getColumn());
 
-            if (neighborIsEmpty(dr, dc) && !(aManufacturing.getThing(row + dr, column + dc) instanceof Poison)) {
+            if (neighborIsEmpty(dr, dc) && !(kind.aManufacturing.getThing(row + dr, column + dc) instanceof Poison)) {
                 nextRow = row + dr;
                 nextCol = column + dc;
-            } else if (aManufacturing.getThing(row + dr, column + dc) instanceof Poison) {
+            } else if (kind.aManufacturing.getThing(row + dr, column + dc) instanceof Poison) {
                 // If there is Poison in the intended direction, become active
-                nextState = ACTIVE;
+                nextActive = true;
                 nextRow = row;
                 nextCol = column;
             } else {
                 // Unable to move, stay in place and become active
-                nextState = ACTIVE;
+                nextActive = true;
                 nextRow = row;
                 nextCol = column;
             }
         }
+
+        // When moving by intents, the move is proposed now and takes place before the change
+        if (kind.aManufacturing.movesByIntents() && (nextRow != row || nextCol != column)) {
+            moveTo(nextRow, nextCol);
+        }
     }
 
 
     /**
-     * Changes the current state of the tourist cell and updates its color accordingly.
+     * Changes the current state of the tourist cell and moves it to its next position, unless it is stuck.
      */
     @Override
     public void change() {
         super.change();
-        updateColor();
         
         if (isStuck) {
             // Do nothing, the cell remains in its position
             return;
         }
 
-        // Move to next position
-        aManufacturing.setThing(row, column, null);
-        row = nextRow;
-        column = nextCol;
-        aManufacturing.setThing(row, column, this);
+        // Move to next position, unless the move was already done by intents
+        if (!kind.aManufacturing.movesByIntents()) {
+            moveTo(nextRow, nextCol);
+        }
     }
 
     /**
-     * Updates the color of the tourist cell based on its current state.
-     * Active cells are colored orange, while inactive cells are colored yellow.
+     * Reacts to losing its next position against another Thing as when the position is taken:
+     * the cell stays in place and switches its state.
      */
-    private void updateColor() {
-        color = (isActive() ? Color.ORANGE : Color.YELLOW);
+    @Override
+    protected void moveBlocked() {
+        nextActive = !isActive();
+        nextRow = row;
+        nextCol = column;
     }
 }
\ No newline at end of file
@@ -0,0 +1,278 @@
+package domain;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Indexes the squares of the sticky walls of a lattice.
+ * The walls are kept as runs of consecutive squares, in row-major order, held by the same StickyWall, so a wall
+ * along a row is a single run whatever its length. Two bit planes, one bit per square, tell in constant time
+ * whether a square belongs to a wall and whether a wall lies on it or next to it, which is what makes a cell stuck.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class WallIndex {
+    private final int rows, columns, words; //The dimensions of the lattice and the 64-bit words of a row
+    private final long[] walls; //Bit set when a wall covers the square
+    private final long[] near; //Bit set when a wall covers the square or one of its eight neighbours
+    private final TreeMap<Long, Run> runs = new TreeMap<>(); //The runs of wall squares by their first position
+    private long squares; //The number of squares covered by walls
+
+    /**
+     * A run of consecutive squares covered by the same wall.
+     */
+    private static final class Run {
+        private final StickyWall wall; //The wall covering the run
+        private long length; //The number of squares of the run
+
+        Run(StickyWall wall, long length) {
+            this.wall = wall;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Creates an empty index for a lattice of the given dimensions.
+     */
+    WallIndex(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.words = (columns + 63) >>> 6;
+        this.walls = new long[rows * words];
+        this.near = new long[rows * words];
+    }
+
+    /**
+     * Checks if no square is covered by a wall.
+     * @return {@code true} if the index is empty.
+     */
+    boolean isEmpty() {
+        return squares == 0;
+    }
+
+    /**
+     * Returns the number of squares covered by walls.
+     * @return the number of wall squares.
+     */
+    long size() {
+        return squares;
+    }
+
+    /**
+     * Checks if a wall covers the given square.
+     */
+    boolean isWall(int r, int c) {
+        return (walls[r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Checks if a wall covers the given square or one of its neighbours.
+     */
+    boolean isNear(int r, int c) {
+        return (near[r * words + (c >>> 6)] & (1L << c)) != 0;
+    }
+
+    /**
+     * Returns the row-major bit plane of the squares covered by walls, which must not be changed.
+     */
+    long[] wallPlane() {
+        return walls;
+    }
+
+    /**
+     * Returns the row-major bit plane of the squares on or next to a wall, which must not be changed.
+     */
+    long[] nearPlane() {
+        return near;
+    }
+
+    /**
+     * Returns the wall covering the given square.
+     * @return the wall, or null if no wall covers the square.
+     */
+    StickyWall wallAt(int r, int c) {
+        if (!isWall(r, c)) {
+            return null;
+        }
+        return runs.floorEntry((long) r * columns + c).getValue().wall;
+    }
+
+    /**
+     * Records that a wall covers the given square, instead of whatever wall covered it.
+     */
+    void add(int r, int c, StickyWall wall) {
+        if (isWall(r, c)) {
+            remove(r, c);
+        }
+        long key = (long) r * columns + c;
+        walls[r * words + (c >>> 6)] |= 1L << c;
+        for (int nr = Math.max(0, r - 1); nr <= Math.min(rows - 1, r + 1); nr++) {
+            for (int nc = Math.max(0, c - 1); nc <= Math.min(columns - 1, c + 1); nc++) {
+                near[nr * words + (nc >>> 6)] |= 1L << nc;
+            }
+        }
+        squares++;
+
+        // Join the run ending just before and the run starting just after, when they are of the same wall
+        Map.Entry<Long, Run> before = runs.lowerEntry(key);
+        Run after = runs.get(key + 1);
+        if (before != null && before.getValue().wall == wall && before.getKey() + before.getValue().length == key) {
+            before.getValue().length++;
+            if (after != null && after.wall == wall) {
+                before.getValue().length += after.length;
+                runs.remove(key + 1);
+            }
+        } else if (after != null && after.wall == wall) {
+            runs.remove(key + 1);
+            runs.put(key, new Run(wall, after.length + 1));
+        } else {
+            runs.put(key, new Run(wall, 1));
+        }
+    }
+
+    /**
+     * Records that no wall covers the given square anymore.
+     */
+    void remove(int r, int c) {
+        if (!isWall(r, c)) {
+            return;
+        }
+        long key = (long) r * columns + c;
+        walls[r * words + (c >>> 6)] &= ~(1L << c);
+        squares--;
+
+        // Split the run holding the square
+        Map.Entry<Long, Run> entry = runs.floorEntry(key);
+        long start = entry.getKey();
+        Run run = entry.getValue();
+        long end = start + run.length;
+        if (start == key) {
+            runs.remove(start);
+        } else {
+            run.length = key - start;
+        }
+        if (key + 1 < end) {
+            runs.put(key + 1, new Run(run.wall, end - key - 1));
+        }
+
+        // The squares around may not be next to a wall anymore
+        for (int nr = Math.max(0, r - 1); nr <= Math.min(rows - 1, r + 1); nr++) {
+            for (int nc = Math.max(0, c - 1); nc <= Math.min(columns - 1, c + 1); nc++) {
+                if (!wallAround(nr, nc)) {
+                    near[nr * words + (nc >>> 6)] &= ~(1L << nc);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that no wall covers any square of a region anymore, a 64-bit word of a row at a time.
+     * Only the runs crossing the rows of the region that held wall squares are looked up.
+     */
+    void removeRegion(int top, int left, int bottom, int right) {
+        boolean removed = false;
+        for (int r = top; r <= bottom; r++) {
+            int covered = 0;
+            for (int w = left >>> 6; w <= right >>> 6; w++) {
+                int i = r * words + w;
+                long cut = walls[i] & PackedLattice.mask(w, left, right);
+                covered += Long.bitCount(cut);
+                walls[i] &= ~cut;
+            }
+            if (covered > 0) {
+                squares -= covered;
+                removed = true;
+                trimRuns((long) r * columns + left, (long) r * columns + right);
+            }
+        }
+        if (removed) {
+            refreshNear(Math.max(0, top - 1), Math.max(0, left - 1), Math.min(rows - 1, bottom + 1), Math.min(columns - 1, right + 1));
+        }
+    }
+
+    /**
+     * Cuts the positions from first to last, both included, out of the runs.
+     */
+    private void trimRuns(long first, long last) {
+        Map.Entry<Long, Run> before = runs.lowerEntry(first);
+        Run tail = null;
+        long tailLength = 0;
+        if (before != null && before.getKey() + before.getValue().length > first) {
+            long end = before.getKey() + before.getValue().length;
+            before.getValue().length = first - before.getKey();
+            tail = before.getValue();
+            tailLength = end - last - 1;
+        }
+        Iterator<Map.Entry<Long, Run>> inside = runs.subMap(first, true, last, true).entrySet().iterator();
+        while (inside.hasNext()) {
+            Map.Entry<Long, Run> entry = inside.next();
+            tail = entry.getValue();
+            tailLength = entry.getKey() + entry.getValue().length - last - 1;
+            inside.remove();
+        }
+        if (tail != null && tailLength > 0) {
+            runs.put(last + 1, new Run(tail.wall, tailLength));
+        }
+    }
+
+    /**
+     * Recomputes which squares of a region are on or next to a wall, from the wall plane.
+     */
+    private void refreshNear(int top, int left, int bottom, int right) {
+        for (int r = top; r <= bottom; r++) {
+            for (int w = left >>> 6; w <= right >>> 6; w++) {
+                long v = vertical(r, w);
+                long around = v | (v << 1) | (v >>> 1) | (vertical(r, w - 1) >>> 63) | (vertical(r, w + 1) << 63);
+                long m = PackedLattice.mask(w, left, right);
+                near[r * words + w] = (near[r * words + w] & ~m) | (around & m);
+            }
+        }
+    }
+
+    /**
+     * Returns the squares of a word of a row that lie on a wall or below or above one.
+     */
+    private long vertical(int r, int w) {
+        if (w < 0 || w >= words) {
+            return 0;
+        }
+        long v = walls[r * words + w];
+        if (r > 0) {
+            v |= walls[(r - 1) * words + w];
+        }
+        if (r < rows - 1) {
+            v |= walls[(r + 1) * words + w];
+        }
+        return v;
+    }
+
+    /**
+     * Checks the walls of the 3x3 neighbourhood of a square.
+     */
+    private boolean wallAround(int r, int c) {
+        for (int nr = Math.max(0, r - 1); nr <= Math.min(rows - 1, r + 1); nr++) {
+            for (int nc = Math.max(0, c - 1); nc <= Math.min(columns - 1, c + 1); nc++) {
+                if (isWall(nr, nc)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts every wall square into a map, by position.
+     * @param into The map receiving the walls.
+     */
+    void putWalls(Map<Long, Thing> into) {
+        for (Map.Entry<Long, Run> entry : runs.entrySet()) {
+            for (long k = 0; k < entry.getValue().length; k++) {
+                into.put(entry.getKey() + k, entry.getValue().wall);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package presentation;
+import domain.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import javax.management.JMException;
+
+/**
+ * Runs an AManufacturing without a display and reports how fast it went.
+ * The lattice is built with the given size, storage and pattern, advanced by the given number of tic-tacs
+ * as fast as possible, and one {@code key: value} line is printed per measure, so that scripts can compare runs:
+ * the throughput in tic-tacs and cells per second, the peak heap and a checksum of the final lattice.
+ * <br>
+ * Usage: {@code java presentation.AManufacturingCLI [--rows n] [--columns n] [--size n] [--storage objects|packed]
+ * [--sparse] [--threads n] [--movement immediate|intents] [--boundary bounded|torus|reflecting]
+ * [--pattern initial|empty|random] [--density d] [--seed n] [--import file] [--generations n] [--metrics]}, where {@code --import} reads an RLE or plain text pattern file over the
+ * pattern and {@code --metrics} also prints the metrics of the tic-tacs, published as an MBean while they run.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class AManufacturingCLI {
+    private int rows = 50, columns = 50; //The dimensions of the lattice
+    private int storage = AManufacturing.OBJECTS; //The storage of the lattice
+    private boolean sparse; //Whether the packed lattice skips its quiescent tiles
+    private boolean measured; //Whether the metrics of the tic-tacs are taken and printed
+    private int threads = 1; //The parallelism of the tic-tacs
+    private int movement = AManufacturing.IMMEDIATE; //The movement of the Things
+    private int boundary = AManufacturing.BOUNDED; //What lies beyond the edges of the lattice
+    private String pattern = "initial"; //The Things the lattice starts with
+    private double density = 0.5; //The probability of an active cell in the random pattern
+    private long seed = 2024; //The seed of the random pattern and of the random choices of the Things
+    private Path imported; //The pattern file read over the pattern, or null
+    private int generations = 100; //The number of tic-tacs to run
+    private static final List<String> VALUED_OPTIONS = Arrays.asList("--rows", "--columns", "--size", "--storage", "--threads",
+        "--movement", "--boundary", "--pattern", "--density", "--seed", "--import", "--generations"); //The options followed by a value
+
+    /**
+     * Runs the lattice described by the arguments and prints the results.
+     * @param args The options of the run.
+     */
+    public static void main(String[] args) {
+        AManufacturingCLI cli = new AManufacturingCLI();
+        try {
+            cli.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java presentation.AManufacturingCLI [--rows n] [--columns n] [--size n] [--storage objects|packed]"
+                + " [--sparse] [--threads n] [--movement immediate|intents] [--boundary bounded|torus|reflecting]"
+                + " [--pattern initial|empty|random] [--density d] [--seed n] [--import file] [--generations n] [--metrics]");
+            System.exit(2);
+        }
+        cli.run();
+    }
+
+    /**
+     * Reads the options of the run, and checks their values and how they combine.
+     * @param args The options.
+     * @throws IllegalArgumentException if an option is unknown, its value is missing, wrong or out of range,
+     * or it does not combine with the others.
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--sparse")) {
+                sparse = true;
+                continue;
+            }
+            if (option.equals("--metrics")) {
+                measured = true;
+                continue;
+            }
+            if (!VALUED_OPTIONS.contains(option)) {
+                throw new IllegalArgumentException("Unknown option " + option);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--rows": rows = Integer.parseInt(value); break;
+                    case "--columns": columns = Integer.parseInt(value); break;
+                    case "--size": rows = columns = Integer.parseInt(value); break;
+                    case "--storage": storage = choose(value, "objects", "packed"); break;
+                    case "--threads": threads = Integer.parseInt(value); break;
+                    case "--movement": movement = choose(value, "immediate", "intents"); break;
+                    case "--boundary": boundary = choose(value, "bounded", "torus", "reflecting"); break;
+                    case "--pattern": choose(value, "initial", "empty", "random"); pattern = value; break;
+                    case "--density": density = Double.parseDouble(value); break;
+                    case "--seed": seed = Long.parseLong(value); break;
+                    case "--import": imported = Paths.get(value); break;
+                    case "--generations": generations = Integer.parseInt(value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Wrong number for " + option + ": " + value);
+            }
+        }
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("The lattice must have at least one row and one column: " + rows + "x" + columns);
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The threads must be positive: " + threads);
+        }
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("The density must be between 0 and 1: " + density);
+        }
+        if (generations < 0) {
+            throw new IllegalArgumentException("The generations must not be negative: " + generations);
+        }
+        if (sparse && storage != AManufacturing.PACKED) {
+            throw new IllegalArgumentException("--sparse needs --storage packed");
+        }
+    }
+
+    /**
+     * Returns the index of a value among the allowed ones.
+     * @throws IllegalArgumentException if the value is not allowed.
+     */
+    private static int choose(String value, String... allowed) {
+        for (int i = 0; i < allowed.length; i++) {
+            if (allowed[i].equals(value)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value " + value + ", expected one of " + String.join(", ", allowed));
+    }
+
+    /**
+     * Builds the lattice, runs the tic-tacs and prints the results.
+     */
+    private void run() {
+        AManufacturing aManufacturing = new AManufacturing(rows, columns, storage);
+        aManufacturing.setSparse(sparse);
+        aManufacturing.setParallelism(threads);
+        aManufacturing.setMovement(movement);
+        aManufacturing.setBoundary(boundary);
+        aManufacturing.setSeed(seed);
+        if (!pattern.equals("initial")) {
+            aManufacturing.fill(0, 0, rows - 1, columns - 1, pattern.equals("random") ? density : 0);
+        }
+        if (imported != null) {
+            try {
+                aManufacturing.importPattern(imported, 0, 0);
+            } catch (IOException e) {
+                System.err.println("Cannot import " + imported + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        if (measured) {
+            aManufacturing.setMetricsEnabled(true);
+            try {
+                aManufacturing.getMetrics().register("cli");
+            } catch (JMException e) {
+                System.err.println("Cannot publish the metrics: " + e.getMessage());
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < generations; i++) {
+            aManufacturing.ticTac();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long checksum = aManufacturing.snapshot().checksum();
+
+        long cells = (long) rows * columns;
+        print("lattice", rows + "x" + columns);
+        print("storage", storage == AManufacturing.PACKED ? (sparse ? "sparse" : "packed") : "objects");
+        print("threads", Integer.toString(aManufacturing.getParallelism()));
+        print("generations", Integer.toString(generations));
+        print("seconds", String.format(Locale.ROOT, "%.6f", seconds));
+        print("generations/s", String.format(Locale.ROOT, "%.2f", generations / seconds));
+        print("cells/s", String.format(Locale.ROOT, "%.0f", cells * generations / seconds));
+        print("peak heap bytes", Long.toString(peakHeap()));
+        print("checksum", String.format("%016x", checksum));
+        if (measured) {
+            printMetrics(aManufacturing.getMetrics());
+        }
+    }
+
+    /**
+     * Prints the metrics of the tic-tacs.
+     */
+    private static void printMetrics(TicTacMetrics metrics) {
+        print("decide mean ns", String.format(Locale.ROOT, "%.0f", metrics.getDecideMeanNanos()));
+        print("decide p99 ns", Long.toString(metrics.getDecideP99Nanos()));
+        print("decide max ns", Long.toString(metrics.getDecideMaxNanos()));
+        print("change mean ns", String.format(Locale.ROOT, "%.0f", metrics.getChangeMeanNanos()));
+        print("change p99 ns", Long.toString(metrics.getChangeP99Nanos()));
+        print("change max ns", Long.toString(metrics.getChangeMaxNanos()));
+        print("evaluated original cells", Long.toString(metrics.getEvaluatedOriginalCells()));
+        print("evaluated cells", Long.toString(metrics.getEvaluatedCells()));
+        print("evaluated tourist cells", Long.toString(metrics.getEvaluatedTouristCells()));
+        print("evaluated reflective cells", Long.toString(metrics.getEvaluatedReflectiveCells()));
+        print("evaluated poisons", Long.toString(metrics.getEvaluatedPoisons()));
+        print("evaluated sticky walls", Long.toString(metrics.getEvaluatedStickyWalls()));
+        print("active cells", Long.toString(metrics.getActiveCells()));
+        print("moves", Long.toString(metrics.getMoves()));
+        print("stuck cells", Long.toString(metrics.getStuckCells()));
+    }
+
+    /**
+     * Returns the sum of the peak usage of the heap memory pools since the start of the program.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Prints one result.
+     */
+    private static void print(String key, String value) {
+        System.out.println(key + ": " + value);
+    }
+}
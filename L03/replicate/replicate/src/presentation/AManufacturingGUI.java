@@ -4,7 +4,9 @@ import domain.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import java.io.*;
+import java.util.BitSet;
 
 /**
  * Represents the graphical user interface for the AManufacturing system.
@@ -17,19 +19,33 @@ import java.io.*;
 
 public class AManufacturingGUI extends JFrame {  
     public static final int SIDE = 11;
+    public static final int MAX_LATTICE_PIXELS = 1000;
+    public static final int MIN_SIDE = 3;
 
-    public final int SIZE;
+    public static final int DEFAULT_RATE = 10;
+    public static final int FRAME_MILLIS = 16;
+
+    public final int ROWS, COLUMNS;
+    public final int side; //The side in pixels of a square, smaller than SIDE on large lattices
     private JButton ticTacButton;
+    private JButton runButton;
+    private JSpinner rateSpinner;
+    private JLabel generationLabel;
     private JPanel controlPanel;
-    private PhotoAManufacturing photo;
+    private LatticeView view; //The panel drawing the snapshots of the lattice
+    private Simulation simulation; //The thread performing the tic-tacs
+    private Timer frames; //The timer taking the frames of the simulation to the view
     private AManufacturing aManufacturing;
    
     /**
      * Creates a new AManufacturingGUI window and initializes its components.
+     * @param aManufacturing The AManufacturing instance to visualize.
      */
-    private AManufacturingGUI() {
-        aManufacturing = new AManufacturing();
-        SIZE = aManufacturing.getSize();
+    private AManufacturingGUI(AManufacturing aManufacturing) {
+        this.aManufacturing = aManufacturing;
+        ROWS = aManufacturing.getRows();
+        COLUMNS = aManufacturing.getColumns();
+        side = Math.max(1, Math.min(SIDE, MAX_LATTICE_PIXELS / Math.max(ROWS, COLUMNS)));
         prepareElements();
         prepareActions();
     }
@@ -39,15 +55,39 @@ public class AManufacturingGUI extends JFrame {
      */
     private void prepareElements() {
         setTitle("aManufacturing celular");
-        photo = new PhotoAManufacturing(this);
         ticTacButton = new JButton("Tic-tac");
+        runButton = new JButton("Run");
+        rateSpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_RATE, 0, 10000, 1));
+        generationLabel = new JLabel("0");
+        controlPanel = new JPanel();
+        controlPanel.add(runButton);
+        controlPanel.add(ticTacButton);
+        controlPanel.add(new JLabel("Tic-tacs/s (0 = max)"));
+        controlPanel.add(rateSpinner);
+        controlPanel.add(new JLabel("Generation"));
+        controlPanel.add(generationLabel);
         setLayout(new BorderLayout());
-        add(photo, BorderLayout.NORTH);
-        add(ticTacButton, BorderLayout.SOUTH);
-        // Set the size of the window based on the lattice size
-        setSize(new Dimension(SIDE * SIZE + 15, SIDE * SIZE + 72));
-        setResizable(false);
-        photo.repaint();
+        if (side >= MIN_SIDE) {
+            aManufacturing.setTrackingChanges(true);
+            PhotoAManufacturing photo = new PhotoAManufacturing(this, aManufacturing.snapshot());
+            view = photo;
+            add(photo, BorderLayout.NORTH);
+            // Set the size of the window based on the lattice size
+            setSize(new Dimension(Math.max(side * COLUMNS + 15, 560), side * ROWS + 82));
+            setResizable(false);
+        } else {
+            // Squares smaller than MIN_SIDE pixels are drawn straight into pixels
+            RasterAManufacturing raster = new RasterAManufacturing(aManufacturing.snapshot(), MAX_LATTICE_PIXELS, MAX_LATTICE_PIXELS);
+            view = raster;
+            add(raster, BorderLayout.CENTER);
+            setSize(new Dimension(MAX_LATTICE_PIXELS + 15, MAX_LATTICE_PIXELS + 82));
+        }
+        add(controlPanel, BorderLayout.SOUTH);
+        // From now on only the simulation thread touches the lattice
+        simulation = new Simulation(aManufacturing, DEFAULT_RATE);
+        simulation.start();
+        frames = new Timer(FRAME_MILLIS, e -> showFrame());
+        frames.start();
     }
 
     /**
@@ -61,18 +101,65 @@ public class AManufacturingGUI extends JFrame {
                     ticTacButtonAction();
                 }
             });
+        runButton.addActionListener(
+            new ActionListener() {
+                public void actionPerformed(ActionEvent e) {
+                    runButtonAction();
+                }
+            });
+        rateSpinner.addChangeListener(e -> simulation.setRate(((Number) rateSpinner.getValue()).doubleValue()));
+        addWindowListener(
+            new WindowAdapter() {
+                public void windowClosing(WindowEvent e) {
+                    closeAction();
+                }
+            });
+    }
+
+    /**
+     * Handles the closing of the window by ending the simulation thread and the timer of the frames.
+     */
+    private void closeAction() {
+        frames.stop();
+        simulation.stop();
     }
 
     /**
-     * Handles the tic-tac button action by performing a tic-tac cycle in the AManufacturing system and repainting the panel.
+     * Handles the tic-tac button action by asking the simulation for one tic-tac cycle.
      */
     private void ticTacButtonAction() {
-        aManufacturing.ticTac();
-        photo.repaint();
+        simulation.step();
+    }
+
+    /**
+     * Handles the run button action by letting the tic-tacs run on their own, or pausing them.
+     */
+    private void runButtonAction() {
+        if (simulation.isRunning()) {
+            simulation.pause();
+            runButton.setText("Run");
+            ticTacButton.setEnabled(true);
+        } else {
+            simulation.play();
+            runButton.setText("Pause");
+            ticTacButton.setEnabled(false);
+        }
+    }
+
+    /**
+     * Shows the latest frame of the simulation, if there is a new one; the frames produced meanwhile are dropped.
+     */
+    private void showFrame() {
+        LatticeSnapshot frame = simulation.takeFrame();
+        if (frame != null) {
+            view.show(frame);
+            generationLabel.setText(Long.toString(frame.getGeneration()));
+        }
     }
 
     /**
      * Returns the instance of AManufacturing associated with this GUI.
+     * It is only safe to use from the simulation thread while the GUI is shown.
      * @return The AManufacturing instance.
      */
     public AManufacturing getaManufacturing() {
@@ -81,68 +168,150 @@ public class AManufacturingGUI extends JFrame {
     
     /**
      * The main entry point of the application.
-     * @param args Command-line arguments (not used).
+     * @param args Command-line arguments: optionally the number of rows and columns of the lattice, and {@code packed} for the packed storage.
      */
     public static void main(String[] args) {
-        AManufacturingGUI ca = new AManufacturingGUI();
+        AManufacturing aManufacturing;
+        if (args.length >= 3) {
+            int storage = (args[2].equals("packed") ? AManufacturing.PACKED : AManufacturing.OBJECTS);
+            aManufacturing = new AManufacturing(Integer.parseInt(args[0]), Integer.parseInt(args[1]), storage);
+        } else if (args.length >= 2) {
+            aManufacturing = new AManufacturing(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        } else if (args.length == 1) {
+            aManufacturing = new AManufacturing(Integer.parseInt(args[0]));
+        } else {
+            aManufacturing = new AManufacturing();
+        }
+        AManufacturingGUI ca = new AManufacturingGUI(aManufacturing);
         ca.setVisible(true);
     }  
 }
 
 /**
  * Represents the panel that visualizes the manufacturing lattice.
- * This panel is responsible for drawing the lattice grid and the Things within it.
+ * The lattice is drawn once into an image that is kept between repaints; for every new snapshot only the squares
+ * that changed are drawn again into the image, and only the rectangles holding them are repainted on the screen.
  */
-class PhotoAManufacturing extends JPanel {
+class PhotoAManufacturing extends JPanel implements LatticeView {
     private AManufacturingGUI gui;
+    private LatticeSnapshot snapshot; //The picture of the lattice being drawn
+    private BufferedImage image; //The lattice as last drawn, or null until it is first painted
 
     /**
      * Creates a new PhotoAManufacturing panel associated with the given GUI.
      * Sets the background color to white and initializes the panel size.
      * @param gui The AManufacturingGUI instance associated with this panel.
+     * @param snapshot The first picture of the lattice.
      */
-    public PhotoAManufacturing(AManufacturingGUI gui) {
+    public PhotoAManufacturing(AManufacturingGUI gui, LatticeSnapshot snapshot) {
         this.gui = gui;
+        this.snapshot = snapshot;
         setBackground(Color.white);
-        setPreferredSize(new Dimension(gui.SIDE * gui.SIZE + 10, gui.SIDE * gui.SIZE + 10));         
+        setPreferredSize(new Dimension(gui.side * gui.COLUMNS + 10, gui.side * gui.ROWS + 10));         
+    }
+
+    /**
+     * Draws again the squares that changed in the new snapshot, and repaints the rectangles that hold them.
+     * The changed squares of a row are repainted as one rectangle spanning them.
+     * @param snapshot The picture of the lattice.
+     */
+    @Override
+    public void show(LatticeSnapshot snapshot) {
+        this.snapshot = snapshot;
+        BitSet changes = snapshot.getChanges();
+        if (image == null || changes == null) {
+            image = null;
+            repaint();
+            return;
+        }
+        Graphics2D g = image.createGraphics();
+        int columns = snapshot.getColumns();
+        int side = gui.side;
+        for (int p = changes.nextSetBit(0); p >= 0; ) {
+            int f = p / columns;
+            int first = p % columns, last = first;
+            for (; p >= 0 && p / columns == f; p = changes.nextSetBit(p + 1)) {
+                last = p % columns;
+                drawSquare(g, f, last);
+            }
+            repaint(side * first, side * f, side * (last - first + 1) + 1, side + 1);
+        }
+        g.dispose();
     }
 
     /**
-     * Paints the components of the panel, including the grid lines and the Things in the lattice.
+     * Paints the lattice by copying the part of the kept image that needs to be painted.
      * @param g The Graphics object used to draw on the panel.
      */
     @Override
     public void paintComponent(Graphics g) {
-        AManufacturing aManufacturing = gui.getaManufacturing();
         super.paintComponent(g);
-         
+        if (image == null) {
+            drawLattice();
+        }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            g.drawImage(image, 0, 0, null);
+        } else {
+            g.drawImage(image, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                        clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
+        }
+    }
+
+    /**
+     * Draws the whole lattice, including the grid lines and the Things in it, into a new kept image.
+     */
+    private void drawLattice() {
+        int side = gui.side;
+        image = new BufferedImage(snapshot.getColumns() * side + 1, snapshot.getRows() * side + 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.white);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
         // Draw grid lines
-        for (int c = 0; c <= aManufacturing.getSize(); c++) {
-            g.drawLine(c * gui.SIDE, 0, c * gui.SIDE, aManufacturing.getSize() * gui.SIDE);
+        g.setColor(Color.black);
+        for (int c = 0; c <= snapshot.getColumns(); c++) {
+            g.drawLine(c * side, 0, c * side, snapshot.getRows() * side);
+        }
+        for (int f = 0; f <= snapshot.getRows(); f++) {
+            g.drawLine(0, f * side, snapshot.getColumns() * side, f * side);
         }
-        for (int f = 0; f <= aManufacturing.getSize(); f++) {
-            g.drawLine(0, f * gui.SIDE, aManufacturing.getSize() * gui.SIDE, f * gui.SIDE);
-        }       
         // Draw the Things in the lattice
-        for (int f = 0; f < aManufacturing.getSize(); f++) {
-            for (int c = 0; c < aManufacturing.getSize(); c++) {
-                if (aManufacturing.getThing(f, c) != null) {
-                    g.setColor(aManufacturing.getThing(f, c).getColor());
-                    if (aManufacturing.getThing(f, c).shape() == Thing.SQUARE) {                  
-                        if (aManufacturing.getThing(f, c).isActive()) {
-                            g.fillRoundRect(gui.SIDE * c + 1, gui.SIDE * f + 1, gui.SIDE - 2, gui.SIDE - 2, 2, 2);
-                        } else {
-                            g.drawRoundRect(gui.SIDE * c + 1, gui.SIDE * f + 1, gui.SIDE - 2, gui.SIDE - 2, 2, 2);    
-                        }
-                    } else {
-                        if (aManufacturing.getThing(f, c).isActive()) {
-                            g.fillOval(gui.SIDE * c + 1, gui.SIDE * f + 1, gui.SIDE - 2, gui.SIDE - 2);
-                        } else {
-                            g.drawOval(gui.SIDE * c + 1, gui.SIDE * f + 1, gui.SIDE - 2, gui.SIDE - 2);
-                        }
-                    }
-                }
+        for (int f = 0; f < snapshot.getRows(); f++) {
+            for (int c = 0; c < snapshot.getColumns(); c++) {
+                drawSquare(g, f, c);
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * Draws the inside of a square of the lattice: blank if it is empty, or the Thing that occupies it.
+     * @param g The Graphics object of the kept image.
+     * @param f The row of the square.
+     * @param c The column of the square.
+     */
+    private void drawSquare(Graphics2D g, int f, int c) {
+        int side = gui.side;
+        g.setColor(Color.white);
+        g.fillRect(side * c + 1, side * f + 1, side - 1, side - 1);
+        if (!snapshot.isOccupied(f, c)) {
+            return;
+        }
+        int thing = snapshot.thingAt(f, c);
+        boolean active = snapshot.isActive(f, c);
+        g.setColor(new Color(thing < 0 ? LatticeSnapshot.ORIGINAL_COLOR : snapshot.getThingColor(thing)));
+        if (thing < 0 || snapshot.getThingShape(thing) == Thing.SQUARE) {                  
+            if (active) {
+                g.fillRoundRect(side * c + 1, side * f + 1, side - 2, side - 2, 2, 2);
+            } else {
+                g.drawRoundRect(side * c + 1, side * f + 1, side - 2, side - 2, 2, 2);    
+            }
+        } else {
+            if (active) {
+                g.fillOval(side * c + 1, side * f + 1, side - 2, side - 2);
+            } else {
+                g.drawOval(side * c + 1, side * f + 1, side - 2, side - 2);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package presentation;
+import domain.*;
+
+/**
+ * A panel that draws the snapshots of a lattice.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+interface LatticeView {
+    /**
+     * Shows a new snapshot of the lattice. Called on the event dispatch thread.
+     * @param snapshot The picture of the lattice.
+     */
+    void show(LatticeSnapshot snapshot);
+}
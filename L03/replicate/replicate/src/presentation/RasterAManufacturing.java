@@ -0,0 +1,227 @@
+package presentation;
+import domain.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Represents a panel that draws very large lattices pixel by pixel.
+ * The colors are written straight into the raster of an image from a snapshot of the lattice.
+ * The zoom is a power of two. At zoom 0 or more, a square takes {@code 2^zoom} pixels per side.
+ * At negative zooms, a pixel covers a block of {@code 2^-zoom} squares per side, and its shade
+ * tells how many of them are active.
+ * Dragging the mouse pans the view and the wheel zooms around the pointer.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+class RasterAManufacturing extends JPanel implements LatticeView {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_ZOOM = 4;
+    private static final int EMPTY = 0xFFFFFF, INACTIVE = 0xE0E0E0;
+
+    private LatticeSnapshot snapshot; //The picture of the lattice being drawn
+    private BufferedImage image; //The image the size of the panel whose raster is written
+    private int[] pixels; //The raster of the image
+    private int[] counts; //The active squares of the blocks of a row of pixels
+    private int zoom; //The power of two of the pixels per square, negative when a pixel covers several squares
+    private int originRow, originColumn; //The square at the top left corner of the panel
+    private Point dragged; //The last point of a drag, or null when the mouse is not dragging
+
+    /**
+     * Creates a panel of the given size drawing the given snapshot, zoomed so that the whole lattice fits.
+     * @param snapshot The picture of the lattice.
+     * @param width The width of the panel in pixels.
+     * @param height The height of the panel in pixels.
+     */
+    public RasterAManufacturing(LatticeSnapshot snapshot, int width, int height) {
+        this.snapshot = snapshot;
+        setPreferredSize(new Dimension(width, height));
+        zoom = MAX_ZOOM;
+        while (zoom > -30 && (scaled(snapshot.getColumns()) > width || scaled(snapshot.getRows()) > height)) {
+            zoom--;
+        }
+        prepareActions();
+    }
+
+    /**
+     * Prepares the panning with the mouse and the zoom with the wheel.
+     */
+    private void prepareActions() {
+        MouseAdapter mouse = new MouseAdapter() {
+            public void mousePressed(MouseEvent e) {
+                dragged = e.getPoint();
+            }
+
+            public void mouseReleased(MouseEvent e) {
+                dragged = null;
+            }
+
+            public void mouseDragged(MouseEvent e) {
+                if (dragged != null) {
+                    int dx = e.getX() - dragged.x, dy = e.getY() - dragged.y;
+                    int columns = squaresIn(dx), rows = squaresIn(dy);
+                    if (columns != 0 || rows != 0) {
+                        originColumn -= columns;
+                        originRow -= rows;
+                        dragged = new Point(dragged.x + pixelsIn(columns), dragged.y + pixelsIn(rows));
+                        repaint();
+                    }
+                }
+            }
+
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                int newZoom = Math.max(-30, Math.min(MAX_ZOOM, zoom - e.getWheelRotation()));
+                if (newZoom != zoom) {
+                    // Keep the square under the pointer in place
+                    int row = originRow + squaresIn(e.getY()), column = originColumn + squaresIn(e.getX());
+                    zoom = newZoom;
+                    originRow = row - squaresIn(e.getY());
+                    originColumn = column - squaresIn(e.getX());
+                    repaint();
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Shows a new snapshot of the lattice.
+     * @param snapshot The picture of the lattice.
+     */
+    @Override
+    public void show(LatticeSnapshot snapshot) {
+        this.snapshot = snapshot;
+        repaint();
+    }
+
+    /**
+     * Paints the snapshot by writing its colors into the raster of the image and drawing the image.
+     * @param g The Graphics object used to draw on the panel.
+     */
+    @Override
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int width = Math.max(1, getWidth()), height = Math.max(1, getHeight());
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            counts = new int[width];
+        }
+        if (zoom >= 0) {
+            drawSquares(width, height);
+        } else {
+            drawBlocks(width, height);
+        }
+        drawThings(width, height);
+        g.drawImage(image, 0, 0, null);
+    }
+
+    /**
+     * Writes the colors of the squares when every square takes one or more pixels.
+     */
+    private void drawSquares(int width, int height) {
+        LatticeSnapshot s = snapshot;
+        int original = LatticeSnapshot.ORIGINAL_COLOR & 0xFFFFFF;
+        for (int y = 0; y < height; y++) {
+            int r = originRow + (y >> zoom);
+            int line = y * width;
+            if (r < 0 || r >= s.getRows()) {
+                Arrays.fill(pixels, line, line + width, EMPTY);
+                continue;
+            }
+            for (int x = 0; x < width; x++) {
+                int c = originColumn + (x >> zoom);
+                int color = EMPTY;
+                if (c >= 0 && c < s.getColumns() && s.isOccupied(r, c)) {
+                    color = (s.isActive(r, c) ? original : INACTIVE);
+                }
+                pixels[line + x] = color;
+            }
+        }
+    }
+
+    /**
+     * Writes the shades of the blocks of squares when every pixel covers several squares.
+     * The more active squares in a block, the closer its shade is to the color of the original cells.
+     */
+    private void drawBlocks(int width, int height) {
+        LatticeSnapshot s = snapshot;
+        int block = 1 << -zoom;
+        for (int y = 0; y < height; y++) {
+            long top = (long) originRow + ((long) y << -zoom);
+            int line = y * width;
+            if (top >= s.getRows() || top + block <= 0) {
+                Arrays.fill(pixels, line, line + width, EMPTY);
+                continue;
+            }
+            int firstRow = (int) Math.max(0, top), lastRow = (int) Math.min(s.getRows(), top + block);
+            Arrays.fill(counts, 0);
+            for (int x = 0; x < width; x++) {
+                long left = (long) originColumn + ((long) x << -zoom);
+                if (left >= s.getColumns()) {
+                    break;
+                }
+                if (left + block <= 0) {
+                    continue;
+                }
+                int firstColumn = (int) Math.max(0, left), length = (int) Math.min(s.getColumns(), left + block) - firstColumn;
+                for (int r = firstRow; r < lastRow; r++) {
+                    counts[x] += s.countActive(r, firstColumn, length);
+                }
+            }
+            double squares = (double) block * block;
+            for (int x = 0; x < width; x++) {
+                int shade = 0xFF - (int) Math.round(Math.sqrt(counts[x] / squares) * (0xFF - 0x80));
+                pixels[line + x] = (shade << 16) | (shade << 8) | shade;
+            }
+        }
+    }
+
+    /**
+     * Writes the colors of the Things that are not original cells over the squares.
+     * Every Thing takes at least one pixel, so that it can still be seen at low zooms.
+     */
+    private void drawThings(int width, int height) {
+        LatticeSnapshot s = snapshot;
+        int size = (zoom >= 0 ? 1 << zoom : 1);
+        for (int i = 0; i < s.getThingCount(); i++) {
+            int x = pixelsIn(s.getThingColumn(i) - originColumn), y = pixelsIn(s.getThingRow(i) - originRow);
+            int color = s.getThingColor(i) & 0xFFFFFF;
+            for (int py = Math.max(0, y); py < Math.min(height, y + size); py++) {
+                for (int px = Math.max(0, x); px < Math.min(width, x + size); px++) {
+                    pixels[py * width + px] = color;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of pixels taken by the given number of squares at the current zoom.
+     */
+    private long scaled(int squares) {
+        return (zoom >= 0 ? (long) squares << zoom : ((long) squares + (1L << -zoom) - 1) >> -zoom);
+    }
+
+    /**
+     * Returns the number of squares spanned by the given number of pixels at the current zoom.
+     */
+    private int squaresIn(int pixels) {
+        return (zoom >= 0 ? pixels >> zoom : (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long) pixels << -zoom)));
+    }
+
+    /**
+     * Returns the pixel offset of the given number of squares at the current zoom.
+     */
+    private int pixelsIn(int squares) {
+        return (zoom >= 0 ? squares << zoom : squares >> -zoom);
+    }
+}
@@ -0,0 +1,159 @@
+package presentation;
+import domain.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the tic-tacs of a lattice on a thread of its own, away from the event dispatch thread.
+ * Once started, only the simulation thread touches the lattice. It hands frames to the view through a
+ * single slot: a new snapshot is only taken when the view has taken the previous one, so the frames that the
+ * view cannot draw in time are dropped instead of piling up, and their changes travel with the next frame.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class Simulation implements Runnable {
+    private final AManufacturing aManufacturing; //The lattice, only touched by the simulation thread
+    private final Thread thread; //The simulation thread
+    private final AtomicReference<LatticeSnapshot> frame = new AtomicReference<>(); //The frame waiting to be drawn
+    private final AtomicInteger steps = new AtomicInteger(); //The tic-tacs asked for while paused
+    private volatile boolean running; //Whether the tic-tacs run on their own
+    private volatile boolean stopped; //Whether the simulation thread must end
+    private volatile double rate; //The tic-tacs per second to aim at, or 0 to go as fast as possible
+
+    /**
+     * Creates a paused simulation of the given lattice.
+     * @param aManufacturing The lattice, which must not be touched by other threads once started.
+     * @param rate The tic-tacs per second to aim at, or 0 to go as fast as possible.
+     */
+    Simulation(AManufacturing aManufacturing, double rate) {
+        this.aManufacturing = aManufacturing;
+        this.rate = rate;
+        this.thread = new Thread(this, "aManufacturing simulation");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the simulation thread.
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Ends the simulation thread once its current tic-tac is done.
+     */
+    void stop() {
+        stopped = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Lets the tic-tacs run on their own.
+     */
+    void play() {
+        running = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Stops the tic-tacs after the current one.
+     */
+    void pause() {
+        running = false;
+    }
+
+    /**
+     * Checks whether the tic-tacs run on their own.
+     * @return {@code true} if the simulation is not paused.
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Asks for one tic-tac while paused.
+     */
+    void step() {
+        steps.incrementAndGet();
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Sets the tic-tacs per second to aim at.
+     * @param rate The tic-tacs per second, or 0 to go as fast as possible.
+     */
+    void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Takes the frame waiting to be drawn, leaving the slot free for the next one.
+     * @return the latest snapshot not yet drawn, or null if there is none.
+     */
+    LatticeSnapshot takeFrame() {
+        return frame.getAndSet(null);
+    }
+
+    /**
+     * Performs the tic-tacs while running or asked to step, paced to the rate, and publishes the frames.
+     */
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+        boolean unpublished = false; //Whether the last tic-tac is in no frame yet
+        while (!stopped) {
+            boolean stepping = !running;
+            if (stepping && steps.get() == 0) {
+                // The view must end up showing the lattice as it is while paused
+                if (unpublished) {
+                    publish(aManufacturing.snapshot());
+                    unpublished = false;
+                }
+                LockSupport.park(this);
+                next = System.nanoTime();
+                continue;
+            }
+            if (stepping) {
+                steps.decrementAndGet();
+            }
+            aManufacturing.ticTac();
+            unpublished = true;
+            // Drop the frame while the view has not taken the previous one
+            if (frame.get() == null) {
+                publish(aManufacturing.snapshot());
+                unpublished = false;
+            }
+            double perSecond = rate;
+            if (running && perSecond > 0) {
+                next += (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                } else if (wait < -TimeUnit.SECONDS.toNanos(1)) {
+                    // Too far behind: aim at the rate from now on instead of catching up at once
+                    next = System.nanoTime();
+                }
+            } else {
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Puts a frame in the slot, keeping the changes of the frame it replaces if the view did not take it.
+     */
+    private void publish(LatticeSnapshot snapshot) {
+        LatticeSnapshot replaced;
+        LatticeSnapshot published;
+        do {
+            replaced = frame.get();
+            published = (replaced == null ? snapshot : snapshot.withEarlierChanges(replaced));
+        } while (!frame.compareAndSet(replaced, published));
+    }
+}
@@ -80,4 +80,55 @@ class AManufacturingTest {
         aManufacturing.ticTac();
         assertTrue(aManufacturing.getThing(2, 2).isActive(), "The cell(2,2) must be active while ticTac maintains without active neighbors");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a cell reading the lattice while deciding still sees the states every Thing had before the change phase.
+     */
+    @Test
+    @DisplayName("Verify that cells decide from the states before the tic-tac")
+    public void testDecideBeforeChange() {
+        AManufacturing am = new AManufacturing(5, 5);
+        am.fill(0, 0, 4, 4, 0);
+        ((OriginalCell) am.getThing(0, 0)).changeState(true);
+        ((OriginalCell) am.getThing(0, 1)).changeState(true);
+        am.setThing(1, 0, null);
+        OriginalCell follower = new OriginalCell(am, 1, 0, false) {
+            @Override
+            public void decide() {
+                nextActive = am.getThing(row - 1, column).isActive();
+            }
+        };
+        am.ticTac();
+        assertFalse(am.getThing(0, 0).isActive(), "The cell above should have become inactive.");
+        assertTrue(follower.isActive(), "The follower should have seen the cell above still active.");
+    }
+
+    /**
+     * Tests that a non-square lattice keeps its dimensions and anchors the initial pattern to its last rows.
+     */
+    @Test
+    @DisplayName("Verify a non-square lattice and its initial pattern")
+    public void testNonSquareLattice() {
+        AManufacturing wide = new AManufacturing(20, 70);
+        assertEquals(20, wide.getRows(), "The lattice must have 20 rows");
+        assertEquals(70, wide.getColumns(), "The lattice must have 70 columns");
+        assertTrue(wide.getThing(14, 5).isActive(), "The cell (14,5) must be active at the beginning");
+        assertTrue(wide.getThing(15, 4).isActive(), "The cell (15,4) must be active at the beginning");
+        assertNotNull(wide.getThing(19, 69), "The cell (19,69) must exist in a 20x70 lattice");
+        assertThrows(IndexOutOfBoundsException.class, () -> wide.getThing(20, 5), "The row 20 is outside of a 20x70 lattice");
+        assertThrows(IndexOutOfBoundsException.class, () -> wide.getThing(5, 70), "The column 70 is outside of a 20x70 lattice");
+        assertThrows(IllegalStateException.class, wide::getSize, "A non-square lattice has no single size");
+        wide.ticTac();
+        assertTrue(wide.getThing(14, 4).isActive(), "The cell (14,4) must become active after one ticTac");
+    }
+
+    /**
+     * Tests that lattices without rows or columns are rejected.
+     */
+    @Test
+    @DisplayName("Verify that empty lattices are rejected")
+    public void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new AManufacturing(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AManufacturing(10, -1));
+    }
+}
@@ -0,0 +1,146 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+
+/**
+ * Unit tests for the boundaries of AManufacturing: bounded, toroidal and reflecting edges.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class BoundaryTest {
+
+    /**
+     * Tests what a single active cell in a corner turns into with every boundary and both storages,
+     * with lattices of one word and of more than one word per row.
+     */
+    @Test
+    public void testCornerCellAcrossEdges() {
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            for (int columns : new int[] {64, 70}) {
+                AManufacturing torus = cornerLattice(storage, columns, AManufacturing.TORUS);
+                torus.ticTac();
+                for (int r = 0; r < 20; r++) {
+                    for (int c = 0; c < columns; c++) {
+                        boolean around = (r <= 1 || r == 19) && (c <= 1 || c == columns - 1);
+                        assertEquals(around, torus.getThing(r, c).isActive(), "Torus state at (" + r + "," + c + ")");
+                    }
+                }
+
+                AManufacturing bounded = cornerLattice(storage, columns, AManufacturing.BOUNDED);
+                bounded.ticTac();
+                assertEquals(4, countActive(bounded), "Only the squares inside should be reached");
+                assertTrue(bounded.getThing(1, 1).isActive());
+
+                AManufacturing reflecting = cornerLattice(storage, columns, AManufacturing.REFLECTING);
+                reflecting.ticTac();
+                assertEquals(1, countActive(reflecting), "The mirrored cell should cancel all but the diagonal");
+                assertTrue(reflecting.getThing(1, 1).isActive());
+            }
+        }
+    }
+
+    /**
+     * Tests that random states on a torus and between mirrors evolve in the same way with both storages,
+     * with a sparse packed lattice and with several tic-tacs at once.
+     */
+    @Test
+    public void testPackedMatchesObjectsAcrossEdges() {
+        for (int boundary : new int[] {AManufacturing.TORUS, AManufacturing.REFLECTING}) {
+            AManufacturing[] lattices = {
+                new AManufacturing(70, 150), new AManufacturing(70, 150, AManufacturing.PACKED), new AManufacturing(70, 150, AManufacturing.PACKED)
+            };
+            lattices[2].setSparse(true);
+            for (AManufacturing am : lattices) {
+                am.setSeed(11);
+                am.fill(0, 0, 69, 149, 0.0);
+                am.fill(0, 0, 8, 149, 0.3);
+                am.setBoundary(boundary);
+                new Poison(am, 69, 149);
+            }
+            for (int i = 0; i < 6; i++) {
+                for (AManufacturing am : lattices) {
+                    am.ticTac(i == 3 ? 5 : 1);
+                }
+                for (int k = 1; k < lattices.length; k++) {
+                    assertSameLattice(lattices[0], lattices[k], " in lattice " + k + " with boundary " + boundary);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a reflective cell on a torus leaves through an edge and comes back through the opposite one.
+     * The cells move by intents, so that a cell that wrapped to a later square is not moved again in the same tic-tac.
+     */
+    @Test
+    public void testReflectiveCellWrapsAround() {
+        boolean crossed = false;
+        for (long seed = 0; seed < 20; seed++) {
+            AManufacturing am = new AManufacturing(5, 5);
+            am.setSeed(seed);
+            am.clear(0, 0, 4, 4);
+            am.setBoundary(AManufacturing.TORUS);
+            am.setMovement(AManufacturing.INTENTS);
+            new ReflectiveCell(am, 0, 0, true);
+            am.ticTac();
+            int found = 0;
+            for (int r = 0; r < 5; r++) {
+                for (int c = 0; c < 5; c++) {
+                    if (am.getThing(r, c) instanceof ReflectiveCell) {
+                        found++;
+                        assertTrue((r <= 1 || r == 4) && (c <= 1 || c == 4), "The cell moved too far: (" + r + "," + c + ")");
+                        crossed |= (r == 4 || c == 4);
+                    }
+                }
+            }
+            assertEquals(1, found, "The reflective cell should not be lost");
+        }
+        assertTrue(crossed, "Some cell should have crossed an edge");
+    }
+
+    /**
+     * Tests that unknown boundaries are rejected, and that the neighbour counts are only kept with bounded edges.
+     */
+    @Test
+    public void testInvalidBoundariesRejected() {
+        AManufacturing am = new AManufacturing(10, 10);
+        assertThrows(IllegalArgumentException.class, () -> am.setBoundary(3));
+        am.setCountingNeighbors(true);
+        assertThrows(IllegalStateException.class, () -> am.setBoundary(AManufacturing.TORUS));
+        am.setCountingNeighbors(false);
+        am.setBoundary(AManufacturing.TORUS);
+        assertEquals(AManufacturing.TORUS, am.getBoundary());
+        assertThrows(IllegalStateException.class, () -> am.setCountingNeighbors(true));
+    }
+
+    /**
+     * Creates a lattice of inactive original cells with a single active one in its top left corner.
+     */
+    private static AManufacturing cornerLattice(int storage, int columns, int boundary) {
+        AManufacturing am = new AManufacturing(20, columns, storage);
+        am.fill(0, 0, 19, columns - 1, 0.0);
+        ((OriginalCell) am.getThing(0, 0)).changeState(true);
+        am.setBoundary(boundary);
+        return am;
+    }
+
+    /**
+     * Counts the active Things of a lattice.
+     */
+    private static int countActive(AManufacturing am) {
+        int active = 0;
+        for (int r = 0; r < am.getRows(); r++) {
+            for (int c = 0; c < am.getColumns(); c++) {
+                Thing thing = am.getThing(r, c);
+                active += (thing != null && thing.isActive() ? 1 : 0);
+            }
+        }
+        return active;
+    }
+}
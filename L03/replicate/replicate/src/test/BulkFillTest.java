@@ -0,0 +1,145 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import domain.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * Unit tests for filling and emptying regions of AManufacturing at once.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class BulkFillTest {
+    @TempDir
+    Path folder;
+
+    /**
+     * Tests that a random fill gives the same states with both storages and any number of threads,
+     * and that the lattices then go on in the same way.
+     */
+    @Test
+    public void testRandomFillIsRepeatable() {
+        AManufacturing[] lattices = {
+            new AManufacturing(90, 150), new AManufacturing(90, 150, AManufacturing.PACKED), new AManufacturing(90, 150)
+        };
+        lattices[2].setParallelism(3);
+        for (AManufacturing am : lattices) {
+            am.setSeed(23);
+            am.fill(5, 10, 80, 140, 0.4);
+        }
+        int active = 0;
+        for (int r = 0; r < 90; r++) {
+            for (int c = 0; c < 150; c++) {
+                active += (lattices[0].getThing(r, c).isActive() ? 1 : 0);
+            }
+        }
+        assertTrue(active > 76 * 131 * 0.3 && active < 76 * 131 * 0.5, "About 40% of the region should be active: " + active);
+        for (AManufacturing am : lattices) {
+            am.ticTac(3);
+        }
+        for (int k = 1; k < lattices.length; k++) {
+            assertSameLattice(lattices[0], lattices[k], " in lattice " + k);
+        }
+        lattices[2].setParallelism(1);
+    }
+
+    /**
+     * Tests that a region filled after some tic-tacs holds new cells that replaced the Things and walls
+     * that were there, with no steps taken, and that a cleared region is empty.
+     */
+    @Test
+    public void testFillReplacesRegion() {
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing am = new AManufacturing(40, 70, storage);
+            new StickyWall(am, 20);
+            am.setThing(10, 10, null);
+            new TouristCell(am, 10, 10, true);
+            am.ticTac(4);
+            am.setTrackingChanges(true);
+
+            am.fill(8, 0, 25, 69, 1);
+            Thing filled = am.getThing(20, 35);
+            assertTrue(filled instanceof OriginalCell && filled.isActive(), "The wall should have been replaced by an active cell.");
+            assertEquals(0, ((Cell) filled).getSteps(), "A new cell should not have taken any step.");
+            assertFalse(((Cell) filled).getIsStuck());
+            assertTrue(am.getThing(10, 10) instanceof OriginalCell, "The tourist cell should have been replaced.");
+            assertEquals(4, ((Cell) am.getThing(30, 5)).getSteps(), "The cells outside of the region should keep their steps.");
+            BitSet changes = am.takeChanges();
+            assertEquals(18 * 70, changes.cardinality(), "Every square of the region should be recorded as changed.");
+
+            am.ticTac();
+            assertFalse(((Cell) am.getThing(19, 35)).getIsStuck(), "The cells should not stick to a wall that is gone.");
+
+            am.clear(30, 60, 39, 69);
+            assertNull(am.getThing(39, 69));
+            assertNull(am.getThing(30, 60));
+            assertNotNull(am.getThing(29, 60));
+            am.setTrackingChanges(false);
+        }
+    }
+
+    /**
+     * Tests that the cells of regions filled after some tic-tacs, one over the other, take their steps from the fill,
+     * become stuck as the rest, and keep their steps when saved, with both storages.
+     */
+    @Test
+    public void testFillAfterTicTacsKeepsSteps() throws IOException {
+        AManufacturing objects = new AManufacturing(40, 130);
+        AManufacturing packed = new AManufacturing(40, 130, AManufacturing.PACKED);
+        for (AManufacturing am : new AManufacturing[] {objects, packed}) {
+            am.setSeed(2);
+            am.ticTac(3);
+            am.fill(0, 0, 19, 99, 0.5);
+            am.ticTac();
+            am.fill(5, 60, 25, 129, 0.5);
+            new StickyWall(am, 10, 0, 10, 20);
+            am.ticTac(2);
+            assertEquals(3, ((Cell) am.getThing(0, 0)).getSteps(), "A cell of the first fill");
+            assertEquals(2, ((Cell) am.getThing(20, 70)).getSteps(), "A cell of the second fill");
+            assertEquals(6, ((Cell) am.getThing(30, 0)).getSteps(), "A cell that was never filled");
+            assertTrue(((Cell) am.getThing(11, 5)).getIsStuck());
+            assertEquals(5, ((Cell) am.getThing(11, 5)).getSteps(), "A stuck cell of the first fill");
+        }
+        assertSameLattice(objects, packed);
+        Path file = folder.resolve("filled.amnf");
+        packed.save(file);
+        assertSameLattice(objects, AManufacturing.load(file, AManufacturing.PACKED));
+    }
+
+    /**
+     * Tests that a lattice keeping neighbour counts goes on as one counting the squares after a fill.
+     */
+    @Test
+    public void testFillKeepsNeighborCounts() {
+        AManufacturing counting = new AManufacturing(30, 30);
+        AManufacturing scanning = new AManufacturing(30, 30);
+        counting.setCountingNeighbors(true);
+        for (AManufacturing am : new AManufacturing[] {counting, scanning}) {
+            am.setSeed(5);
+            am.ticTac();
+            am.fill(0, 0, 29, 14, 0.5);
+            am.ticTac(4);
+        }
+        assertSameLattice(scanning, counting);
+    }
+
+    /**
+     * Tests that regions outside of the lattice and densities out of range are rejected.
+     */
+    @Test
+    public void testInvalidFillsRejected() {
+        AManufacturing am = new AManufacturing(10, 10);
+        assertThrows(IllegalArgumentException.class, () -> am.fill(0, 0, 10, 9, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> am.fill(5, 5, 4, 9, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> am.fill(0, 0, 9, 9, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> am.clear(-1, 0, 3, 3));
+    }
+}
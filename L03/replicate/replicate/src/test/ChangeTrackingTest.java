@@ -0,0 +1,89 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+import java.util.BitSet;
+
+/**
+ * Unit tests for the positions that AManufacturing reports as changed, used to repaint only them.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class ChangeTrackingTest {
+
+    /**
+     * Tests that every position whose Thing appears, disappears or changes its state is reported, with both storages.
+     */
+    @Test
+    public void testChangesCoverEveryDifference() {
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing am = new AManufacturing(30, 70, storage);
+            new TouristCell(am, 2, 66, true);
+            new StickyWall(am, 25);
+            am.setTrackingChanges(true);
+            am.takeChanges();
+            for (int i = 0; i < 10; i++) {
+                String[] before = appearance(am);
+                am.ticTac();
+                String[] after = appearance(am);
+                BitSet changes = am.takeChanges();
+                for (int p = 0; p < before.length; p++) {
+                    if (!before[p].equals(after[p])) {
+                        assertTrue(changes.get(p), "Unreported change at (" + p / 70 + "," + p % 70 + ") with storage " + storage);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that the changes are forgotten once taken and that nothing is reported while they are not tracked.
+     */
+    @Test
+    public void testChangesAreTaken() {
+        AManufacturing am = new AManufacturing(20, 20);
+        am.ticTac();
+        assertTrue(am.takeChanges().isEmpty(), "No change should be reported while they are not tracked.");
+
+        am.setTrackingChanges(true);
+        am.setThing(3, 4, null);
+        BitSet changes = am.takeChanges();
+        assertEquals(1, changes.cardinality(), "Only the emptied square should have changed.");
+        assertTrue(changes.get(3 * 20 + 4));
+        assertTrue(am.takeChanges().isEmpty(), "The changes should be forgotten once taken.");
+    }
+
+    /**
+     * Tests that the changes of a leap of a packed lattice are the states that differ.
+     */
+    @Test
+    public void testLeapChanges() {
+        AManufacturing am = new AManufacturing(40, 40, AManufacturing.PACKED);
+        am.setTrackingChanges(true);
+        String[] before = appearance(am);
+        am.ticTac(100);
+        String[] after = appearance(am);
+        BitSet changes = am.takeChanges();
+        for (int p = 0; p < before.length; p++) {
+            assertEquals(!before[p].equals(after[p]), changes.get(p), "Wrong change at (" + p / 40 + "," + p % 40 + ")");
+        }
+    }
+
+    /**
+     * Describes what is seen at every position of a lattice.
+     */
+    private String[] appearance(AManufacturing am) {
+        String[] seen = new String[am.getRows() * am.getColumns()];
+        for (int r = 0; r < am.getRows(); r++) {
+            for (int c = 0; c < am.getColumns(); c++) {
+                Thing thing = am.getThing(r, c);
+                seen[r * am.getColumns() + c] = (thing == null ? "" : thing.getColor() + " " + thing.shape() + " " + thing.isActive());
+            }
+        }
+        return seen;
+    }
+}
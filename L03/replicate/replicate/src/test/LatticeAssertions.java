@@ -0,0 +1,69 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import domain.*;
+
+/**
+ * Assertions comparing two lattices square by square, shared by the tests that check that two ways of
+ * advancing or storing a lattice give the same result.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+final class LatticeAssertions {
+
+    private LatticeAssertions() {
+    }
+
+    /**
+     * Checks that two lattices hold Things of the same kind, state, color, steps and stuck flag at every position.
+     * @param expected The reference lattice.
+     * @param actual The lattice compared with it.
+     */
+    static void assertSameLattice(AManufacturing expected, AManufacturing actual) {
+        assertSameLattice(expected, actual, "");
+    }
+
+    /**
+     * Checks that two lattices hold Things of the same kind, state, color, steps and stuck flag at every position.
+     * The original cells of a packed lattice only tell that they are original cells, so any original cell
+     * matches any other.
+     * @param expected The reference lattice.
+     * @param actual The lattice compared with it.
+     * @param context The text added to the position in the messages, such as the tic-tac being compared.
+     */
+    static void assertSameLattice(AManufacturing expected, AManufacturing actual, String context) {
+        assertSameSize(expected, actual);
+        for (int r = 0; r < expected.getRows(); r++) {
+            for (int c = 0; c < expected.getColumns(); c++) {
+                Thing e = expected.getThing(r, c);
+                Thing a = actual.getThing(r, c);
+                String where = " at (" + r + "," + c + ")" + context;
+                assertEquals(e == null, a == null, "Different occupation" + where);
+                if (e == null) {
+                    continue;
+                }
+                assertEquals(e instanceof OriginalCell, a instanceof OriginalCell, "Different Thing" + where);
+                if (!(e instanceof OriginalCell)) {
+                    assertEquals(e.getClass(), a.getClass(), "Different Thing" + where);
+                }
+                assertEquals(e.isActive(), a.isActive(), "Different state" + where);
+                assertEquals(e.getColor(), a.getColor(), "Different color" + where);
+                if (e instanceof Cell) {
+                    assertEquals(((Cell) e).getSteps(), ((Cell) a).getSteps(), "Different steps" + where);
+                    assertEquals(((Cell) e).getIsStuck(), ((Cell) a).getIsStuck(), "Different stuck flag" + where);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that two lattices have the same rows and columns.
+     */
+    private static void assertSameSize(AManufacturing expected, AManufacturing actual) {
+        assertEquals(expected.getRows(), actual.getRows(), "Different rows");
+        assertEquals(expected.getColumns(), actual.getColumns(), "Different columns");
+    }
+}
@@ -0,0 +1,133 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import domain.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for saving and loading the state of AManufacturing in binary files.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class LatticeFileTest {
+    @TempDir
+    Path folder;
+
+    /**
+     * Tests that a lattice with every kind of Thing is loaded as it was saved, with any pair of storages,
+     * and that both lattices go on in the same way.
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        int[] storages = {AManufacturing.OBJECTS, AManufacturing.PACKED};
+        for (int saved : storages) {
+            for (int loaded : storages) {
+                AManufacturing original = new AManufacturing(30, 70, saved);
+                original.setThing(2, 2, null);
+                new TouristCell(original, 2, 2, true);
+                original.setThing(8, 66, null);
+                new ReflectiveCell(original, 8, 66, true);
+                original.setThing(14, 3, new Poison());
+                original.setThing(5, 5, null);
+                new Cell(original, 5, 5, true);
+                new StickyWall(original, 25);
+                original.setThing(25, 10, null);
+                original.ticTac(12);
+
+                Path file = folder.resolve("lattice-" + saved + "-" + loaded + ".amnf");
+                original.save(file);
+                AManufacturing copy = AManufacturing.load(file, loaded);
+                assertEquals(loaded, copy.getStorage());
+                assertEquals(original.getGeneration(), copy.getGeneration());
+                assertSameLattice(original, copy);
+                for (int i = 0; i < 6; i++) {
+                    original.ticTac();
+                    copy.ticTac();
+                    assertSameLattice(original, copy);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a loaded lattice keeps the seed of the saved one, so that the reflective cells and the poison placed
+     * after loading draw the same directions and colors as in the run that was not interrupted.
+     */
+    @Test
+    public void testSaveAndLoadSeed() throws IOException {
+        AManufacturing original = new AManufacturing(20, 20, AManufacturing.PACKED);
+        original.setSeed(77);
+        original.setThing(3, 3, null);
+        new ReflectiveCell(original, 3, 3, true);
+        original.ticTac(4);
+        Path file = folder.resolve("seeded.amnf");
+        original.save(file);
+        AManufacturing[] lattices = {
+            original, AManufacturing.load(file, AManufacturing.OBJECTS), AManufacturing.load(file, AManufacturing.PACKED)
+        };
+        for (AManufacturing am : lattices) {
+            assertEquals(77, am.getSeed());
+            for (int k = 0; k < 4; k++) {
+                am.setThing(10 + k, 4 * k, null);
+                new ReflectiveCell(am, 10 + k, 4 * k, true);
+            }
+            new Poison(am, 16, 16);
+            am.ticTac(5);
+        }
+        assertSameLattice(original, lattices[1]);
+        assertSameLattice(original, lattices[2]);
+    }
+
+    /**
+     * Tests that a file that is not a saved lattice is rejected.
+     */
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = folder.resolve("other.amnf");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32});
+        assertThrows(IOException.class, () -> AManufacturing.load(file, AManufacturing.OBJECTS));
+
+        AManufacturing am = new AManufacturing(10, 10);
+        Path saved = folder.resolve("saved.amnf");
+        am.save(saved);
+        byte[] bytes = Files.readAllBytes(saved);
+        Files.write(saved, java.util.Arrays.copyOf(bytes, bytes.length - 10));
+        assertThrows(IOException.class, () -> AManufacturing.load(saved, AManufacturing.PACKED));
+    }
+
+    /**
+     * Tests that the squares of vertical and slanted walls are loaded where they were, and go on making cells stuck.
+     */
+    @Test
+    public void testSaveAndLoadSegments() throws IOException {
+        AManufacturing original = new AManufacturing(25, 40, AManufacturing.PACKED);
+        new StickyWall(original, 1, 30, 20, 30);
+        new StickyWall(original, 4, 2, 18, 16);
+        Path file = folder.resolve("segments.amnf");
+        original.save(file);
+        original.ticTac();
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing copy = AManufacturing.load(file, storage);
+            copy.ticTac();
+            for (int r = 0; r < 25; r++) {
+                for (int c = 0; c < 40; c++) {
+                    Thing expected = original.getThing(r, c);
+                    Thing actual = copy.getThing(r, c);
+                    String where = " at (" + r + "," + c + ")";
+                    assertEquals(expected instanceof StickyWall, actual instanceof StickyWall, "Different wall" + where);
+                    if (expected instanceof Cell) {
+                        assertEquals(((Cell) expected).getIsStuck(), ((Cell) actual).getIsStuck(), "Different stuck flag" + where);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import domain.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for the journal of the tic-tacs of AManufacturing.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class LatticeJournalTest {
+    @TempDir
+    Path folder;
+
+    /**
+     * Tests that a journal replays a run forwards and backwards, with any pair of storages,
+     * including the changes made between the tic-tacs and after the last one.
+     */
+    @Test
+    public void testReplayForwardsAndBackwards() throws IOException {
+        int[] storages = {AManufacturing.OBJECTS, AManufacturing.PACKED};
+        for (int written : storages) {
+            for (int replayed : storages) {
+                AManufacturing am = new AManufacturing(30, 70, written);
+                am.setThing(2, 2, null);
+                new TouristCell(am, 2, 2, true);
+                am.setThing(8, 66, null);
+                new ReflectiveCell(am, 8, 66, true);
+                am.setThing(14, 3, new Poison());
+                new StickyWall(am, 25);
+                am.setThing(25, 10, null);
+                am.ticTac(3);
+
+                Path base = folder.resolve("base-" + written + "-" + replayed + ".amnf");
+                Path journal = folder.resolve("run-" + written + "-" + replayed + ".amnj");
+                am.save(base);
+                am.startJournal(journal);
+                assertTrue(am.isJournaling());
+                long[] checksums = new long[12];
+                checksums[0] = am.snapshot().checksum();
+                for (int i = 1; i < checksums.length; i++) {
+                    if (i == 5) {
+                        am.setThing(20, 40, new Poison());
+                        am.setThing(21, 40, null);
+                    }
+                    am.ticTac();
+                    checksums[i] = am.snapshot().checksum();
+                }
+                am.setThing(1, 1, null);
+                am.stopJournal();
+                assertFalse(am.isJournaling());
+                long last = am.snapshot().checksum();
+
+                AManufacturing copy = AManufacturing.load(base, replayed);
+                for (int i = 1; i < checksums.length - 1; i += 2) {
+                    copy.replay(journal, 3 + i);
+                    assertEquals(3 + i, copy.getGeneration());
+                    assertEquals(checksums[i], copy.snapshot().checksum(), "Different lattice at generation " + (3 + i));
+                }
+                copy.replay(journal, 3 + checksums.length - 1);
+                assertEquals(last, copy.snapshot().checksum(), "The changes after the last tic-tac should be replayed");
+                for (int i = checksums.length - 2; i >= 0; i -= 3) {
+                    copy.replay(journal, 3 + i);
+                    assertEquals(checksums[i], copy.snapshot().checksum(), "Different lattice back at generation " + (3 + i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a journal replays the toggles of a packed lattice without Things other than original cells.
+     */
+    @Test
+    public void testReplayOriginalCells() throws IOException {
+        AManufacturing am = new AManufacturing(40, 130, AManufacturing.PACKED);
+        Path base = folder.resolve("pattern.amnf");
+        Path journal = folder.resolve("pattern.amnj");
+        am.save(base);
+        am.startJournal(journal);
+        am.ticTac(20);
+        long checksum = am.snapshot().checksum();
+        am.stopJournal();
+
+        AManufacturing copy = AManufacturing.load(base, AManufacturing.OBJECTS);
+        copy.replay(journal, 20);
+        assertEquals(checksum, copy.snapshot().checksum());
+        assertTrue(Files.size(journal) < 40 * 130 * 20 / 8, "The journal should be smaller than the planes of every tic-tac.");
+        assertFalse(am.isTrackingChanges(), "The journal should not leave the changes tracked.");
+    }
+
+    /**
+     * Tests that a packed lattice of original cells still leaps while journaling, in a single record.
+     */
+    @Test
+    public void testReplayLeaps() throws IOException {
+        AManufacturing am = new AManufacturing(64, 100, AManufacturing.PACKED);
+        Path base = folder.resolve("leap.amnf");
+        Path journal = folder.resolve("leap.amnj");
+        am.save(base);
+        am.startJournal(journal);
+        am.ticTac();
+        long first = am.snapshot().checksum();
+        am.ticTac(100_000);
+        long checksum = am.snapshot().checksum();
+        am.stopJournal();
+
+        AManufacturing copy = AManufacturing.load(base, AManufacturing.PACKED);
+        copy.replay(journal, 1);
+        assertEquals(first, copy.snapshot().checksum());
+        copy.replay(journal, 100_001);
+        assertEquals(checksum, copy.snapshot().checksum());
+        assertThrows(IllegalArgumentException.class, () -> copy.replay(journal, 500), "The leap should be a single record.");
+    }
+
+    /**
+     * Tests that the journal records the positions of the changes a view takes between the tic-tacs,
+     * and the cells that become stuck without changing their state, with both storages.
+     */
+    @Test
+    public void testReplayTakenChangesAndStuckCells() throws IOException {
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing am = new AManufacturing(20, 30, storage);
+            am.setTrackingChanges(true);
+            Path base = folder.resolve("stuck-" + storage + ".amnf");
+            Path journal = folder.resolve("stuck-" + storage + ".amnj");
+            am.save(base);
+            am.startJournal(journal);
+            am.ticTac(2);
+            new StickyWall(am, 10);
+            ((OriginalCell) am.getThing(3, 3)).changeState(true);
+            am.snapshot(); // Takes the changes, as a view repainting them does
+            am.ticTac(2);
+            am.takeChanges();
+            am.stopJournal();
+            assertTrue(am.isTrackingChanges());
+
+            AManufacturing copy = AManufacturing.load(base, storage);
+            copy.replay(journal, 4);
+            for (int r = 0; r < 20; r++) {
+                for (int c = 0; c < 30; c++) {
+                    Thing thing = am.getThing(r, c);
+                    String where = " at (" + r + "," + c + ") with storage " + storage;
+                    assertEquals(thing == null, copy.getThing(r, c) == null, "Different occupation" + where);
+                    if (thing != null) {
+                        assertEquals(thing.isActive(), copy.getThing(r, c).isActive(), "Different state" + where);
+                    }
+                    if (thing instanceof Cell) {
+                        assertEquals(((Cell) thing).getIsStuck(), ((Cell) copy.getThing(r, c)).getIsStuck(), "Different stuck flag" + where);
+                    }
+                }
+            }
+            assertEquals(am.snapshot().checksum(), copy.snapshot().checksum());
+        }
+    }
+
+    /**
+     * Tests that a journal is not replayed out of its generations or on a lattice of another size.
+     */
+    @Test
+    public void testRejectsOutOfJournal() throws IOException {
+        AManufacturing am = new AManufacturing(10, 10);
+        Path journal = folder.resolve("short.amnj");
+        am.startJournal(journal);
+        am.ticTac(4);
+        am.stopJournal();
+
+        AManufacturing start = new AManufacturing(10, 10);
+        assertThrows(IllegalArgumentException.class, () -> start.replay(journal, 5));
+        assertThrows(IOException.class, () -> new AManufacturing(10, 11).replay(journal, 2));
+
+        Path other = folder.resolve("other.amnj");
+        Files.write(other, new byte[] {1, 2, 3, 4});
+        assertThrows(IOException.class, () -> start.replay(other, 0));
+    }
+}
@@ -0,0 +1,97 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+
+/**
+ * Unit tests for the snapshots of AManufacturing used to draw large lattices.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class LatticeSnapshotTest {
+
+    /**
+     * Tests that a snapshot pictures every square and lists the Things that are not original cells, with both storages.
+     */
+    @Test
+    public void testSnapshotMatchesLattice() {
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing am = new AManufacturing(20, 130, storage);
+            am.setThing(5, 70, null);
+            new TouristCell(am, 5, 70, true);
+            am.setThing(12, 3, new Poison());
+            am.ticTac(3);
+            LatticeSnapshot snapshot = am.snapshot();
+            assertEquals(3, snapshot.getGeneration());
+            for (int r = 0; r < 20; r++) {
+                for (int c = 0; c < 130; c++) {
+                    Thing thing = am.getThing(r, c);
+                    assertEquals(thing != null, snapshot.isOccupied(r, c), "Different occupation at (" + r + "," + c + ")");
+                    assertEquals(thing != null && thing.isActive(), snapshot.isActive(r, c), "Different state at (" + r + "," + c + ")");
+                }
+            }
+            assertEquals(2, snapshot.getThingCount(), "Only the tourist cell and the poison should be listed.");
+            for (int i = 0; i < snapshot.getThingCount(); i++) {
+                Thing thing = am.getThing(snapshot.getThingRow(i), snapshot.getThingColumn(i));
+                assertEquals(thing.getColor().getRGB(), snapshot.getThingColor(i));
+                assertEquals(thing.shape(), snapshot.getThingShape(i));
+            }
+        }
+    }
+
+    /**
+     * Tests that the active squares of runs of columns are counted across words.
+     */
+    @Test
+    public void testCountActive() {
+        AManufacturing am = new AManufacturing(3, 200, AManufacturing.PACKED);
+        for (int c = 0; c < 200; c += 3) {
+            ((OriginalCell) am.getThing(1, c)).changeState(true);
+        }
+        LatticeSnapshot snapshot = am.snapshot();
+        for (int[] run : new int[][] {{0, 200}, {1, 63}, {60, 70}, {64, 64}, {130, 70}, {199, 1}}) {
+            int expected = 0;
+            for (int c = run[0]; c < run[0] + run[1]; c++) {
+                expected += (c % 3 == 0 ? 1 : 0);
+            }
+            assertEquals(expected, snapshot.countActive(1, run[0], run[1]), "Wrong count from " + run[0] + " over " + run[1]);
+            assertEquals(run[1], snapshot.countOccupied(1, run[0], run[1]));
+        }
+    }
+
+    /**
+     * Tests that snapshots take the tracked changes, and that a snapshot can carry the changes of a skipped one.
+     */
+    @Test
+    public void testSnapshotsCarryChanges() {
+        AManufacturing am = new AManufacturing(20, 20);
+        assertNull(am.snapshot().getChanges(), "Untracked changes should be unknown.");
+        am.setTrackingChanges(true);
+        am.setThing(1, 1, null);
+        LatticeSnapshot skipped = am.snapshot();
+        am.setThing(2, 2, null);
+        LatticeSnapshot latest = am.snapshot();
+        assertEquals(1, latest.getChanges().cardinality(), "The snapshot should only carry the changes since the previous one.");
+        java.util.BitSet merged = latest.withEarlierChanges(skipped).getChanges();
+        assertTrue(merged.get(1 * 20 + 1) && merged.get(2 * 20 + 2), "The changes of the skipped snapshot should be kept.");
+        assertEquals(-1, latest.thingAt(2, 2));
+    }
+
+    /**
+     * Tests that equal lattices have equal checksums whatever their storage, and that a change alters it.
+     */
+    @Test
+    public void testChecksum() {
+        AManufacturing objects = new AManufacturing(30, 90, AManufacturing.OBJECTS);
+        AManufacturing packed = new AManufacturing(30, 90, AManufacturing.PACKED);
+        objects.ticTac(7);
+        packed.ticTac(7);
+        assertEquals(objects.snapshot().checksum(), packed.snapshot().checksum(), "Equal lattices should have equal checksums.");
+        packed.ticTac();
+        assertNotEquals(objects.snapshot().checksum(), packed.snapshot().checksum(), "Different lattices should have different checksums.");
+    }
+}
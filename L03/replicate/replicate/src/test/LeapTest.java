@@ -0,0 +1,76 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+import java.time.Duration;
+
+/**
+ * Unit tests for the leap of AManufacturing, which advances many tic-tacs at once.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class LeapTest {
+
+    /**
+     * Tests that leaping a packed lattice gives the same states and steps as the tic-tacs one by one,
+     * for lattices that do and do not fill their last word.
+     */
+    @Test
+    public void testLeapMatchesTicTacs() {
+        int[][] sizes = {{37, 100}, {64, 64}, {5, 130}, {1, 1}};
+        for (int[] size : sizes) {
+            for (int generations : new int[] {1, 2, 3, 7, 64, 77, 300}) {
+                AManufacturing stepping = new AManufacturing(size[0], size[1], AManufacturing.PACKED);
+                AManufacturing leaping = new AManufacturing(size[0], size[1], AManufacturing.PACKED);
+                java.util.Random random = new java.util.Random(generations);
+                for (int r = 0; r < size[0]; r++) {
+                    for (int c = 0; c < size[1]; c++) {
+                        boolean active = random.nextInt(5) == 0;
+                        ((OriginalCell) stepping.getThing(r, c)).changeState(active);
+                        ((OriginalCell) leaping.getThing(r, c)).changeState(active);
+                    }
+                }
+                for (int i = 0; i < generations; i++) {
+                    stepping.ticTac();
+                }
+                leaping.ticTac(generations);
+                assertSameLattice(stepping, leaping, " of " + size[0] + "x" + size[1] + " after " + generations);
+            }
+        }
+    }
+
+    /**
+     * Tests that a packed lattice holding other Things, asked for many tic-tacs at once, still advances
+     * tic-tac by tic-tac as an object lattice does.
+     */
+    @Test
+    public void testLeapWithThings() {
+        AManufacturing objects = new AManufacturing(30, 30, AManufacturing.OBJECTS);
+        AManufacturing packed = new AManufacturing(30, 30, AManufacturing.PACKED);
+        for (AManufacturing am : new AManufacturing[] {objects, packed}) {
+            am.setSeed(3);
+            new Poison(am, 3, 3);
+        }
+        for (int i = 0; i < 9; i++) {
+            objects.ticTac();
+        }
+        packed.ticTac(9);
+        assertSameLattice(objects, packed);
+        assertThrows(IllegalArgumentException.class, () -> packed.ticTac(-1));
+    }
+
+    /**
+     * Tests that a packed lattice reaches the generation 1,000,000 at once.
+     */
+    @Test
+    public void testLeapToAMillion() {
+        AManufacturing manufacturing = new AManufacturing(500, 500, AManufacturing.PACKED);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> manufacturing.ticTac(1_000_000));
+        assertEquals(1_000_000, ((Cell) manufacturing.getThing(0, 0)).getSteps(), "Every cell should have taken a step per tic-tac.");
+    }
+}
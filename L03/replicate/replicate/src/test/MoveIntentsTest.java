@@ -0,0 +1,112 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import domain.*;
+
+/**
+ * Unit tests for the INTENTS movement of AManufacturing.
+ * Moves are proposed while deciding, contested positions go to the first Thing in row-major order,
+ * and the result does not depend on the number of threads.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class MoveIntentsTest {
+    private AManufacturing manufacturing;
+
+    /**
+     * Sets up an empty lattice moving Things by intents before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        manufacturing = new AManufacturing();
+        for (int r = 0; r < manufacturing.getRows(); r++) {
+            for (int c = 0; c < manufacturing.getColumns(); c++) {
+                manufacturing.setThing(r, c, null);
+            }
+        }
+        manufacturing.setMovement(AManufacturing.INTENTS);
+    }
+
+    /**
+     * Tests that the movement can be changed and rejects unknown values.
+     */
+    @Test
+    public void testMovement() {
+        assertEquals(AManufacturing.INTENTS, manufacturing.getMovement(), "The movement should be INTENTS.");
+        assertEquals(AManufacturing.IMMEDIATE, new AManufacturing().getMovement(), "The default movement should be IMMEDIATE.");
+        assertThrows(IllegalArgumentException.class, () -> manufacturing.setMovement(7));
+    }
+
+    /**
+     * Tests that two tourist cells heading to the same position are resolved in row-major order.
+     * The first one moves, the second one stays in place and becomes inactive as when it is blocked.
+     */
+    @Test
+    public void testContestedPositionGoesToFirstCell() {
+        // Both cells head to (20,25) on their way to the center (25,25)
+        TouristCell first = new TouristCell(manufacturing, 19, 24, true);
+        TouristCell second = new TouristCell(manufacturing, 19, 25, true);
+
+        manufacturing.ticTac();
+
+        assertEquals(20, first.getRow(), "The first cell should have moved (row).");
+        assertEquals(25, first.getColumn(), "The first cell should have moved (column).");
+        assertSame(first, manufacturing.getThing(20, 25), "The first cell should be at (20,25).");
+        assertTrue(manufacturing.isEmpty(19, 24), "The first cell should have left (19,24).");
+        assertEquals(19, second.getRow(), "The second cell should stay in place (row).");
+        assertEquals(25, second.getColumn(), "The second cell should stay in place (column).");
+        assertFalse(second.isActive(), "The second cell should become inactive when blocked.");
+    }
+
+    /**
+     * Tests that a reflective cell moves at most one position per tic-tac by intents.
+     */
+    @Test
+    public void testReflectiveCellMovesOncePerTicTac() {
+        ReflectiveCell cell = new ReflectiveCell(manufacturing, 10, 10, true);
+        for (int i = 0; i < 5; i++) {
+            int row = cell.getRow();
+            int column = cell.getColumn();
+            manufacturing.ticTac();
+            assertTrue(Math.abs(cell.getRow() - row) <= 1 && Math.abs(cell.getColumn() - column) <= 1, "The cell should move one position at most.");
+            assertSame(cell, manufacturing.getThing(cell.getRow(), cell.getColumn()), "The lattice should hold the cell where it is.");
+        }
+    }
+
+    /**
+     * Tests that tourist cells moving by intents end in the same places with one and with four threads.
+     */
+    @Test
+    public void testParallelMatchesSerial() {
+        AManufacturing parallel = new AManufacturing();
+        for (int r = 0; r < parallel.getRows(); r++) {
+            for (int c = 0; c < parallel.getColumns(); c++) {
+                parallel.setThing(r, c, null);
+            }
+        }
+        parallel.setMovement(AManufacturing.INTENTS);
+        parallel.setParallelism(4);
+        TouristCell[] serialCells = new TouristCell[40];
+        TouristCell[] parallelCells = new TouristCell[40];
+        for (int i = 0; i < 40; i++) {
+            int r = (i * 7) % 50;
+            int c = (i * 13) % 50;
+            serialCells[i] = new TouristCell(manufacturing, r, c, i % 2 == 0);
+            parallelCells[i] = new TouristCell(parallel, r, c, i % 2 == 0);
+        }
+        for (int t = 0; t < 30; t++) {
+            manufacturing.ticTac();
+            parallel.ticTac();
+        }
+        for (int i = 0; i < 40; i++) {
+            assertEquals(serialCells[i].getRow(), parallelCells[i].getRow(), "Different row for cell " + i);
+            assertEquals(serialCells[i].getColumn(), parallelCells[i].getColumn(), "Different column for cell " + i);
+            assertEquals(serialCells[i].isActive(), parallelCells[i].isActive(), "Different state for cell " + i);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the tic-tacs performed many at a time by AManufacturing.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class MultiStepTicTacTest {
+
+    /**
+     * Tests that many tic-tacs give the same lattice as the tic-tacs one by one, with every storage.
+     */
+    @Test
+    public void testTicTacsMatchOneByOne() {
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing stepping = new AManufacturing(30, 40, storage);
+            AManufacturing running = new AManufacturing(30, 40, storage);
+            for (AManufacturing am : new AManufacturing[] {stepping, running}) {
+                am.setSeed(3);
+                new TouristCell(am, 2, 2, true);
+                new Poison(am, 20, 20);
+            }
+            for (int i = 0; i < 25; i++) {
+                stepping.ticTac();
+            }
+            running.ticTac(25);
+            assertEquals(25, running.getGeneration(), "The generation should count every tic-tac.");
+            assertSameLattice(stepping, running);
+        }
+    }
+
+    /**
+     * Tests that the observer is told every few tic-tacs and after the last one.
+     */
+    @Test
+    public void testObserverSamplesEveryFewTicTacs() {
+        AManufacturing am = new AManufacturing(20, 20);
+        List<Long> generations = new ArrayList<>();
+        am.ticTac(10, 4, (observed, generation) -> {
+            assertSame(am, observed, "The observer should see the lattice being advanced.");
+            generations.add(generation);
+        });
+        assertEquals(List.of(4L, 8L, 10L), generations, "The observer should be told after 4, 8 and 10 tic-tacs.");
+        assertThrows(IllegalArgumentException.class, () -> am.ticTac(10, 0, (observed, generation) -> { }));
+    }
+
+    /**
+     * Tests that runUntil stops as soon as the condition holds, and at the limit otherwise.
+     */
+    @Test
+    public void testRunUntil() {
+        AManufacturing am = new AManufacturing(20, 20);
+        assertEquals(6, am.runUntil(observed -> observed.getGeneration() == 6, 100), "The tic-tacs should stop when the condition holds.");
+        assertEquals(0, am.runUntil(observed -> true, 100), "No tic-tac should be performed if the condition already holds.");
+        assertEquals(5, am.runUntil(observed -> false, 5), "The tic-tacs should stop at the limit.");
+        assertEquals(11, am.getGeneration());
+        assertEquals(4, am.runUntil(observed -> observed.getGeneration() == 15), "The tic-tacs should go on until the condition holds.");
+    }
+}
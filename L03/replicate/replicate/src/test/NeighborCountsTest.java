@@ -0,0 +1,196 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+import java.util.Random;
+
+/**
+ * Unit tests for the neighbour counts kept by an OBJECTS lattice of AManufacturing.
+ * A lattice keeping the counts must evolve exactly as one counting the squares every time.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class NeighborCountsTest {
+
+    /**
+     * Tests that random states with moving Things, poison and a wall evolve in the same way with and without counts,
+     * with every movement and with parallel tic-tacs, including changes made between the tic-tacs.
+     */
+    @Test
+    public void testCountsMatchScanning() {
+        int[][] settings = {{AManufacturing.IMMEDIATE, 1}, {AManufacturing.INTENTS, 1}, {AManufacturing.IMMEDIATE, 3}};
+        for (int[] setting : settings) {
+            AManufacturing scanning = randomLattice();
+            AManufacturing counting = randomLattice();
+            for (AManufacturing am : new AManufacturing[] {scanning, counting}) {
+                am.setMovement(setting[0]);
+                am.setParallelism(setting[1]);
+            }
+            counting.setCountingNeighbors(true);
+            assertTrue(counting.isCountingNeighbors());
+            for (int i = 0; i < 12; i++) {
+                if (i == 6) {
+                    for (AManufacturing am : new AManufacturing[] {scanning, counting}) {
+                        ((OriginalCell) am.getThing(1, 1)).changeState(true);
+                        am.setThing(2, 30, null);
+                        new TouristCell(am, 2, 30, true);
+                        new Poison(am, 28, 5);
+                    }
+                }
+                scanning.ticTac();
+                counting.ticTac();
+                assertSameLattice(scanning, counting, " after tic-tac " + i);
+            }
+        }
+    }
+
+    /**
+     * Tests that once a lattice of original cells stops changing, its tic-tacs evaluate no Thing,
+     * while the cells still take their steps, and that a change only brings back the squares around it.
+     */
+    @Test
+    public void testSteadyLatticeEvaluatesNothing() {
+        AManufacturing scanning = new AManufacturing(64, 64);
+        AManufacturing counting = new AManufacturing(64, 64);
+        counting.setCountingNeighbors(true);
+        for (AManufacturing am : new AManufacturing[] {scanning, counting}) {
+            new Poison(am, 20, 20);
+            am.fill(0, 0, 63, 63, 0);
+        }
+        counting.setMetricsEnabled(true);
+        TicTacMetrics metrics = counting.getMetrics();
+        scanning.ticTac();
+        counting.ticTac();
+        assertEquals(64 * 64, metrics.getEvaluatedOriginalCells(), "The first tic-tac should visit every square.");
+
+        metrics.reset();
+        scanning.ticTac(5);
+        counting.ticTac(5);
+        assertEquals(0, metrics.getEvaluatedOriginalCells(), "A steady lattice should evaluate nothing.");
+        assertEquals(6, ((Cell) counting.getThing(0, 0)).getSteps(), "The cells should take their steps even when not visited.");
+        assertSameLattice(scanning, counting);
+
+        metrics.reset();
+        for (AManufacturing am : new AManufacturing[] {scanning, counting}) {
+            ((OriginalCell) am.getThing(10, 10)).changeState(true);
+            am.ticTac();
+        }
+        assertEquals(9, metrics.getEvaluatedOriginalCells(), "Only the squares around the change should be visited.");
+        assertEquals(9, metrics.getActiveCells());
+        assertSameLattice(scanning, counting);
+    }
+
+    /**
+     * Tests that the tic-tacs that only visit the squares around the changes evolve as the ones that count every square,
+     * with and without threads, across changes made between the tic-tacs and a tourist cell that comes and goes.
+     */
+    @Test
+    public void testVisitsMatchScanning() {
+        for (double density : new double[] {0.5, 0.02}) {
+            for (int threads : new int[] {1, 3}) {
+                AManufacturing scanning = new AManufacturing(40, 130);
+                AManufacturing counting = new AManufacturing(40, 130);
+                for (AManufacturing am : new AManufacturing[] {scanning, counting}) {
+                    am.setSeed(31);
+                    am.fill(0, 0, 39, 129, density);
+                    am.setParallelism(threads);
+                    am.setThing(5, 70, null);
+                    new Cell(am, 5, 70, true);
+                    new Poison(am, 15, 100);
+                    new StickyWall(am, 25, 10, 25, 80);
+                    am.setTrackingChanges(true);
+                }
+                counting.setCountingNeighbors(true);
+                counting.setMetricsEnabled(true);
+                for (int i = 0; i < 16; i++) {
+                    for (AManufacturing am : new AManufacturing[] {scanning, counting}) {
+                        if (i == 4) {
+                            ((OriginalCell) am.getThing(0, 127)).changeState(true);
+                            am.setThing(39, 0, null);
+                            am.fill(10, 60, 14, 66, 1);
+                            new StickyWall(am, 33, 20, 33, 40);
+                        } else if (i == 8) {
+                            am.setThing(35, 64, null);
+                            new TouristCell(am, 35, 64, true);
+                        } else if (i == 11) {
+                            Cell tourist = findTourist(am);
+                            am.setThing(tourist.getRow(), tourist.getColumn(), null);
+                        }
+                        am.ticTac();
+                    }
+                    assertSameLattice(scanning, counting, " after tic-tac " + i);
+                    assertEquals(scanning.takeChanges(), counting.takeChanges(), "Different changes after tic-tac " + i);
+                    assertEquals(countActiveCells(scanning), counting.getMetrics().getActiveCells(), "Wrong active cells after tic-tac " + i);
+                }
+                for (AManufacturing am : new AManufacturing[] {scanning, counting}) {
+                    am.setParallelism(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a packed lattice does not keep neighbour counts.
+     */
+    @Test
+    public void testPackedDoesNotCount() {
+        AManufacturing packed = new AManufacturing(10, 10, AManufacturing.PACKED);
+        assertThrows(IllegalStateException.class, () -> packed.setCountingNeighbors(true));
+        packed.setCountingNeighbors(false);
+        assertFalse(packed.isCountingNeighbors());
+    }
+
+    /**
+     * Returns the only tourist cell of a lattice.
+     */
+    private static Cell findTourist(AManufacturing am) {
+        for (int r = 0; r < am.getRows(); r++) {
+            for (int c = 0; c < am.getColumns(); c++) {
+                if (am.getThing(r, c) instanceof TouristCell) {
+                    return (Cell) am.getThing(r, c);
+                }
+            }
+        }
+        throw new AssertionError("No tourist cell");
+    }
+
+    /**
+     * Counts the active cells of a lattice.
+     */
+    private static long countActiveCells(AManufacturing am) {
+        long active = 0;
+        for (int r = 0; r < am.getRows(); r++) {
+            for (int c = 0; c < am.getColumns(); c++) {
+                Thing thing = am.getThing(r, c);
+                active += (thing instanceof Cell && thing.isActive() ? 1 : 0);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Builds a lattice of random original cells with a tourist cell, a plain cell, poison and a sticky wall.
+     */
+    private AManufacturing randomLattice() {
+        AManufacturing am = new AManufacturing(30, 45);
+        am.setSeed(19);
+        Random random = new Random(19);
+        for (int r = 0; r < 30; r++) {
+            for (int c = 0; c < 45; c++) {
+                ((OriginalCell) am.getThing(r, c)).changeState(random.nextBoolean());
+            }
+        }
+        am.setThing(10, 10, null);
+        new TouristCell(am, 10, 10, true);
+        am.setThing(5, 40, null);
+        new Cell(am, 5, 40, true);
+        new Poison(am, 15, 15);
+        new StickyWall(am, 22);
+        return am;
+    }
+}
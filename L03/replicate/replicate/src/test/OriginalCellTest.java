@@ -94,4 +94,24 @@ public class OriginalCellTest {
         // Verify that a cell outside the sub-board (39, 0) remains inactive, as it should not be affected
         assertTrue(((OriginalCell) manufacturing.getThing(39, 0)).isActive());
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a cell in a corner only counts the neighbors inside the lattice,
+     * both during a tic-tac and when it decides on its own.
+     */
+    @Test
+    public void testCornerCountsOnlyNeighborsInside() {
+        AManufacturing small = new AManufacturing(10, 10);
+        ((OriginalCell) small.getThing(0, 0)).changeState(true);
+        small.ticTac();
+        assertTrue(small.getThing(0, 1).isActive());
+        assertTrue(small.getThing(1, 1).isActive());
+
+        // Four active cells around the corner: the corner decides to become inactive
+        ((OriginalCell) small.getThing(1, 0)).changeState(true);
+        OriginalCell corner = (OriginalCell) small.getThing(0, 0);
+        corner.decide();
+        corner.change();
+        assertFalse(corner.isActive());
+    }
+}
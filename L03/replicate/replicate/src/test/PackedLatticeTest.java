@@ -0,0 +1,96 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+
+/**
+ * Unit tests for the PACKED storage of AManufacturing.
+ * A packed lattice must behave exactly as the object lattice with the same Things.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class PackedLatticeTest {
+
+    /**
+     * Tests that the initial pattern evolves in the same way with both storages.
+     */
+    @Test
+    public void testPatternMatchesObjectLattice() {
+        AManufacturing objects = new AManufacturing(40, 130, AManufacturing.OBJECTS);
+        AManufacturing packed = new AManufacturing(40, 130, AManufacturing.PACKED);
+        for (int i = 0; i < 12; i++) {
+            objects.ticTac();
+            packed.ticTac();
+            assertSameLattice(objects, packed);
+        }
+    }
+
+    /**
+     * Tests that random states evolve in the same way with both storages, across 64-column word boundaries.
+     */
+    @Test
+    public void testRandomStatesMatchObjectLattice() {
+        AManufacturing objects = new AManufacturing(20, 150, AManufacturing.OBJECTS);
+        AManufacturing packed = new AManufacturing(20, 150, AManufacturing.PACKED);
+        java.util.Random random = new java.util.Random(2024);
+        for (int r = 0; r < 20; r++) {
+            for (int c = 0; c < 150; c++) {
+                boolean active = random.nextBoolean();
+                ((OriginalCell) objects.getThing(r, c)).changeState(active);
+                ((OriginalCell) packed.getThing(r, c)).changeState(active);
+            }
+        }
+        for (AManufacturing am : new AManufacturing[] {objects, packed}) {
+            am.setSeed(2024);
+            new Poison(am, 7, 64);
+        }
+        for (int i = 0; i < 10; i++) {
+            objects.ticTac();
+            packed.ticTac();
+            assertSameLattice(objects, packed);
+        }
+    }
+
+    /**
+     * Tests that packed cells, tourist cells, poison and sticky walls interact as in the object lattice.
+     */
+    @Test
+    public void testThingsMatchObjectLattice() {
+        AManufacturing objects = new AManufacturing(30, 70, AManufacturing.OBJECTS);
+        AManufacturing packed = new AManufacturing(30, 70, AManufacturing.PACKED);
+        for (AManufacturing am : new AManufacturing[] {objects, packed}) {
+            am.setThing(10, 64, null);
+            am.setThing(11, 63, null);
+            new TouristCell(am, 12, 62, true);
+            new TouristCell(am, 3, 3, false);
+            am.setSeed(6);
+            new Poison(am, 20, 20);
+            new StickyWall(am, 25);
+        }
+        for (int i = 0; i < 8; i++) {
+            objects.ticTac();
+            packed.ticTac();
+            assertSameLattice(objects, packed);
+        }
+    }
+
+    /**
+     * Tests that the views returned by getThing read and write the packed lattice.
+     */
+    @Test
+    public void testViewsWriteThrough() {
+        AManufacturing packed = new AManufacturing(10, 10, AManufacturing.PACKED);
+        assertTrue(packed.getThing(4, 5) instanceof OriginalCell, "A packed square should be seen as an OriginalCell.");
+        ((OriginalCell) packed.getThing(0, 0)).changeState(true);
+        assertTrue(packed.getThing(0, 0).isActive(), "The change of state should be kept in the packed lattice.");
+
+        packed.setThing(0, 1, null);
+        assertTrue(packed.isEmpty(0, 1), "The square should be empty once its cell is removed.");
+        assertEquals(1, packed.neighborsActive(0, 1), "Only the cell (0,0) should be active around (0,1).");
+    }
+}
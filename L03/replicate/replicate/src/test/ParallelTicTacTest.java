@@ -0,0 +1,84 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+
+/**
+ * Unit tests for the parallel tic-tac of AManufacturing.
+ * A lattice ticking on several threads must be identical to the same lattice ticking on one.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class ParallelTicTacTest {
+
+    /**
+     * Tests that the parallelism can be changed and rejects non-positive values.
+     */
+    @Test
+    public void testParallelism() {
+        AManufacturing manufacturing = new AManufacturing();
+        assertEquals(1, manufacturing.getParallelism(), "Tic-tacs should run on one thread by default.");
+        manufacturing.setParallelism(4);
+        assertEquals(4, manufacturing.getParallelism(), "The parallelism should be 4.");
+        manufacturing.setParallelism(1);
+        assertEquals(1, manufacturing.getParallelism(), "The parallelism should be back to 1.");
+        assertThrows(IllegalArgumentException.class, () -> manufacturing.setParallelism(0));
+    }
+
+    /**
+     * Tests that an object lattice gives the same result with one and with several threads.
+     */
+    @Test
+    public void testObjectLatticeMatchesSerial() {
+        assertParallelMatchesSerial(AManufacturing.OBJECTS);
+    }
+
+    /**
+     * Tests that a packed lattice gives the same result with one and with several threads.
+     */
+    @Test
+    public void testPackedLatticeMatchesSerial() {
+        assertParallelMatchesSerial(AManufacturing.PACKED);
+    }
+
+    /**
+     * Ticks the same random lattice, with poison, sticky walls and tourist cells, on one and on four threads.
+     * @param storage The storage of the lattices.
+     */
+    private void assertParallelMatchesSerial(int storage) {
+        AManufacturing serial = new AManufacturing(90, 140, storage);
+        AManufacturing parallel = new AManufacturing(90, 140, storage);
+        parallel.setParallelism(4);
+        java.util.Random random = new java.util.Random(7);
+        for (int r = 0; r < 90; r++) {
+            for (int c = 0; c < 140; c++) {
+                boolean active = random.nextInt(3) == 0;
+                ((OriginalCell) serial.getThing(r, c)).changeState(active);
+                ((OriginalCell) parallel.getThing(r, c)).changeState(active);
+            }
+        }
+        for (AManufacturing am : new AManufacturing[] {serial, parallel}) {
+            am.setSeed(7);
+            new Poison(am, 30, 30);
+            new StickyWall(am, 60);
+        }
+        for (int i = 0; i < 6; i++) {
+            serial.ticTac();
+            parallel.ticTac();
+        }
+        for (AManufacturing am : new AManufacturing[] {serial, parallel}) {
+            am.setThing(10, 10, null);
+            new TouristCell(am, 11, 11, false);
+        }
+        for (int i = 0; i < 6; i++) {
+            serial.ticTac();
+            parallel.ticTac();
+        }
+        assertSameLattice(serial, parallel);
+    }
+}
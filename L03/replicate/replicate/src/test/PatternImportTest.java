@@ -0,0 +1,177 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Unit tests for reading RLE and plain text patterns into AManufacturing.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class PatternImportTest {
+
+    /**
+     * Tests that an RLE glider with comments and header is placed at the given position, with both storages.
+     */
+    @Test
+    public void testRunLengthEncoded() throws IOException {
+        String glider = "#N Glider\n#C A comment\nx = 3, y = 3, rule = B3/S23\nbob$2bo$3o!\nignored after the end";
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing am = new AManufacturing(20, 20, storage);
+            am.importPattern(new StringReader(glider), 2, 3);
+            assertActive(am, 2, 4);
+            assertActive(am, 3, 5);
+            assertActive(am, 4, 3);
+            assertActive(am, 4, 4);
+            assertActive(am, 4, 5);
+            assertFalse(am.getThing(2, 3).isActive(), "A dead cell of the pattern should be inactive.");
+            assertEquals(5, countActive(am, 0, 10), "Only the glider should be active around it.");
+        }
+    }
+
+    /**
+     * Tests that a pattern read over stuck original cells keeps their steps and their stickiness,
+     * in the same way with both storages.
+     */
+    @Test
+    public void testImportKeepsStuckCells() throws IOException {
+        AManufacturing[] lattices = {new AManufacturing(10, 10), new AManufacturing(10, 10, AManufacturing.PACKED)};
+        for (AManufacturing am : lattices) {
+            new StickyWall(am, 5);
+            am.ticTac(3);
+            am.importPattern(new StringReader("x = 3, y = 1\nobo!"), 4, 0);
+            assertActive(am, 4, 0);
+            assertFalse(am.getThing(4, 1).isActive());
+            assertTrue(((Cell) am.getThing(4, 1)).getIsStuck(), "The cell under the pattern should stay stuck.");
+            assertEquals(6, ((Cell) am.getThing(4, 1)).getSteps(), "The cell under the pattern should keep its steps.");
+        }
+        for (int r = 0; r < 10; r++) {
+            for (int c = 0; c < 10; c++) {
+                Thing thing = lattices[0].getThing(r, c);
+                if (thing instanceof Cell) {
+                    Cell other = (Cell) lattices[1].getThing(r, c);
+                    assertEquals(thing.isActive(), other.isActive(), "Different state at (" + r + "," + c + ")");
+                    assertEquals(((Cell) thing).getIsStuck(), other.getIsStuck(), "Different stickiness at (" + r + "," + c + ")");
+                    assertEquals(((Cell) thing).getSteps(), other.getSteps(), "Different steps at (" + r + "," + c + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a plain text pattern with comments is placed as written.
+     */
+    @Test
+    public void testPlainText() throws IOException {
+        AManufacturing am = new AManufacturing(10, 10);
+        am.importPattern(new StringReader("!Name: Blinker\r\n!\r\n.O.\r\n.O.\r\n.O.\r\n"), 0, 0);
+        assertActive(am, 0, 1);
+        assertActive(am, 1, 1);
+        assertActive(am, 2, 1);
+        assertEquals(3, countActive(am, 0, 5));
+    }
+
+    /**
+     * Tests that the extended tags place every kind of Thing, and that a wall run makes a single wall.
+     */
+    @Test
+    public void testExtendedTags() throws IOException {
+        AManufacturing am = new AManufacturing(10, 10);
+        am.importPattern(new StringReader("x = 5, y = 3\nTtRrP$Cc2E$5W!"), 1, 1);
+        assertTrue(am.getThing(1, 1) instanceof TouristCell && am.getThing(1, 1).isActive());
+        assertTrue(am.getThing(1, 2) instanceof TouristCell && !am.getThing(1, 2).isActive());
+        assertTrue(am.getThing(1, 3) instanceof ReflectiveCell && am.getThing(1, 3).isActive());
+        assertTrue(am.getThing(1, 4) instanceof ReflectiveCell && !am.getThing(1, 4).isActive());
+        assertTrue(am.getThing(1, 5) instanceof Poison);
+        assertEquals(Cell.class, am.getThing(2, 1).getClass());
+        assertTrue(am.getThing(2, 1).isActive());
+        assertFalse(am.getThing(2, 2).isActive());
+        assertNull(am.getThing(2, 3));
+        assertNull(am.getThing(2, 4));
+        assertTrue(am.getThing(3, 1) instanceof StickyWall);
+        assertSame(am.getThing(3, 1), am.getThing(3, 5), "A run of wall should be one wall.");
+        assertEquals(OriginalCell.class, am.getThing(3, 6).getClass(), "The squares after the pattern should keep what they had.");
+    }
+
+    /**
+     * Tests that a pattern far larger than the lattice streams through, with the squares out of the lattice skipped.
+     */
+    @Test
+    public void testLargePatternIsClipped() throws IOException {
+        AManufacturing am = new AManufacturing(16, 16, AManufacturing.PACKED);
+        am.importPattern(new RepeatingReader("x = 4000000, y = 1000\n", "4000000o$", 1000), -500, 4);
+        assertEquals(16 * 12, countActive(am, 0, 16));
+        assertFalse(am.getThing(0, 3).isActive());
+    }
+
+    /**
+     * Tests that a pattern that is not well formed is rejected with its line.
+     */
+    @Test
+    public void testRejectsWrongPatterns() {
+        AManufacturing am = new AManufacturing(10, 10);
+        IOException e = assertThrows(IOException.class, () -> am.importPattern(new StringReader("x = 2, y = 2\n2o$\n2q!"), 0, 0));
+        assertTrue(e.getMessage().contains("line 3"), e.getMessage());
+        assertThrows(IOException.class, () -> am.importPattern(new StringReader(".O.\n.X."), 0, 0));
+        assertThrows(IOException.class, () -> am.importPattern(new StringReader("x = 1, y = 1\n3"), 0, 0));
+    }
+
+    /**
+     * Checks that the Thing at a position is active.
+     */
+    private void assertActive(AManufacturing am, int r, int c) {
+        assertTrue(am.getThing(r, c).isActive(), "The square (" + r + "," + c + ") should be active.");
+    }
+
+    /**
+     * Counts the active Things in a square region.
+     */
+    private int countActive(AManufacturing am, int from, int to) {
+        int count = 0;
+        for (int r = from; r < Math.min(to, am.getRows()); r++) {
+            for (int c = from; c < Math.min(to, am.getColumns()); c++) {
+                if (am.getThing(r, c) != null && am.getThing(r, c).isActive()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A pattern made of a header and a line repeated many times, produced as it is read.
+     */
+    private static final class RepeatingReader extends Reader {
+        private final String header, line; //The first line and the repeated one
+        private final int times; //The number of times the line is repeated
+        private long position; //The characters read
+
+        RepeatingReader(String header, String line, int times) {
+            this.header = header;
+            this.line = line;
+            this.times = times;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            long total = header.length() + (long) line.length() * times;
+            int n = 0;
+            for (; n < length && position < total; n++, position++) {
+                buffer[offset + n] = (position < header.length() ? header.charAt((int) position)
+                                      : line.charAt((int) ((position - header.length()) % line.length())));
+            }
+            return (n == 0 ? -1 : n);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
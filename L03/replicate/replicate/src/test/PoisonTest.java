@@ -73,4 +73,25 @@ public class PoisonTest {
     public void testIsAlwaysActive() {
         assertTrue(poison.isActive(), "Poison should always be active.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that poison placed in lattices with the same seed starts with the same colors, and that it is placed
+     * where it was created.
+     */
+    @Test
+    public void testSeededColorsRepeat() {
+        AManufacturing first = new AManufacturing(10, 10);
+        AManufacturing second = new AManufacturing(10, 10);
+        first.setSeed(77);
+        second.setSeed(77);
+        boolean varied = false;
+        for (int c = 0; c < 10; c++) {
+            Poison a = new Poison(first, 3, c);
+            Poison b = new Poison(second, 3, c);
+            assertSame(a, first.getThing(3, c), "The poison should be placed where it was created.");
+            assertEquals(a.getColor(), b.getColor(), "The same seed should give the same color at column " + c);
+            varied |= !a.getColor().equals(first.getThing(3, 0).getColor());
+        }
+        assertTrue(varied, "Poison at different positions should not all start with the same color.");
+    }
+}
@@ -1,6 +1,7 @@
 package test;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import domain.*;
@@ -19,6 +20,7 @@ public class ReflectiveCellTest {
     
     private AManufacturing manufacturing; //The manufacturing environment used for the tests
     private ReflectiveCell reflectiveCell; //The ReflectiveCell instance used in the tests
+    private static final long SEED = 3; //A seed that gives the cell at (1,1) a direction, so it does not stay still
 
     /**
      * Sets up the manufacturing environment and creates a ReflectiveCell before each test.
@@ -26,6 +28,7 @@ public class ReflectiveCellTest {
     @BeforeEach
     public void setUp() {
         manufacturing = new AManufacturing();
+        manufacturing.setSeed(SEED);
         reflectiveCell = new ReflectiveCell(manufacturing, 1, 1, true);
         manufacturing.setThing(1, 1, reflectiveCell);
     }
@@ -87,4 +90,28 @@ public class ReflectiveCellTest {
         assertFalse(reflectiveCell.isActive(), "ReflectiveCell should become inactive after encountering poison.");
         assertEquals(Color.GRAY, reflectiveCell.getColor(), "ReflectiveCell should be gray when inactive.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that reflective cells created in lattices with the same seed move in the same way,
+     * whatever the order in which they were created.
+     */
+    @Test
+    public void testSeededMovesRepeat() {
+        AManufacturing first = new AManufacturing(30, 30);
+        AManufacturing second = new AManufacturing(30, 30);
+        first.setSeed(SEED);
+        second.setSeed(SEED);
+        for (int k = 0; k < 8; k++) {
+            first.setThing(3 * k + 2, 4 * k + 1, null);
+            new ReflectiveCell(first, 3 * k + 2, 4 * k + 1, true);
+        }
+        for (int k = 7; k >= 0; k--) {
+            second.setThing(3 * k + 2, 4 * k + 1, null);
+            new ReflectiveCell(second, 3 * k + 2, 4 * k + 1, true);
+        }
+        first.ticTac(5);
+        second.ticTac(5);
+        assertSameLattice(first, second);
+        assertEquals(SEED, first.getSeed());
+    }
+}
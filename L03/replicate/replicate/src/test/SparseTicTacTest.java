@@ -0,0 +1,74 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+
+/**
+ * Unit tests for the sparse tic-tac of AManufacturing, which skips the quiescent tiles of a packed lattice.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class SparseTicTacTest {
+
+    /**
+     * Tests that only PACKED lattices can be sparse.
+     */
+    @Test
+    public void testOnlyPackedLatticesAreSparse() {
+        AManufacturing objects = new AManufacturing();
+        assertThrows(IllegalStateException.class, () -> objects.setSparse(true));
+        assertFalse(objects.isSparse(), "An object lattice should not be sparse.");
+        assertEquals(1, objects.getActiveTiles(), "A 50x50 lattice fits in one tile.");
+    }
+
+    /**
+     * Tests that the initial pattern of a large lattice only keeps a few tiles busy.
+     * The pattern starts in one tile, so it is evaluated with the tiles around it.
+     */
+    @Test
+    public void testActiveTilesFollowTheActivity() {
+        AManufacturing sparse = new AManufacturing(640, 640, AManufacturing.PACKED);
+        sparse.setSparse(true);
+        sparse.ticTac();
+        assertTrue(sparse.getActiveTiles() <= 4, "Only the tile of the pattern and its neighbours should be evaluated.");
+
+        AManufacturing dense = new AManufacturing(640, 640, AManufacturing.PACKED);
+        dense.ticTac();
+        assertEquals(100, dense.getActiveTiles(), "Every tile should be evaluated when the lattice is not sparse.");
+    }
+
+    /**
+     * Tests that a sparse lattice evolves as a dense one, on one and on several threads.
+     */
+    @Test
+    public void testSparseMatchesDense() {
+        AManufacturing dense = new AManufacturing(200, 300, AManufacturing.PACKED);
+        AManufacturing sparse = new AManufacturing(200, 300, AManufacturing.PACKED);
+        AManufacturing parallel = new AManufacturing(200, 300, AManufacturing.PACKED);
+        sparse.setSparse(true);
+        parallel.setSparse(true);
+        parallel.setParallelism(3);
+        for (AManufacturing am : new AManufacturing[] {dense, sparse, parallel}) {
+            am.setSeed(4);
+            ((OriginalCell) am.getThing(100, 150)).changeState(true);
+            ((OriginalCell) am.getThing(63, 127)).changeState(true);
+            new Poison(am, 20, 250);
+            am.setThing(150, 30, null);
+            new TouristCell(am, 150, 30, false);
+            new StickyWall(am, 180);
+        }
+        for (int i = 0; i < 40; i++) {
+            dense.ticTac();
+            sparse.ticTac();
+            parallel.ticTac();
+        }
+        assertTrue(sparse.getActiveTiles() < 6 * 5, "Some tiles should have been skipped.");
+        assertSameLattice(dense, sparse, " in the sparse lattice");
+        assertSameLattice(dense, parallel, " in the parallel lattice");
+    }
+}
@@ -1,6 +1,7 @@
 package test;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static test.LatticeAssertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import domain.*;
@@ -153,4 +154,109 @@ public class StickyWallTest {
         assertEquals(reflectiveInitialRow, reflectiveCell.getRow(), "The ReflectiveCell should not move once stuck.");
         assertEquals(reflectiveInitialCol, reflectiveCell.getColumn(), "The ReflectiveCell should not move once stuck.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a StickyWall spans every column of a non-square lattice.
+     */
+    @Test
+    public void testStickyWallSpansAllColumns() {
+        AManufacturing wide = new AManufacturing(10, 80);
+        StickyWall wall = new StickyWall(wide, 2);
+        assertSame(wall, wide.getThing(2, 0), "The wall should start at the first column.");
+        assertSame(wall, wide.getThing(2, 79), "The wall should end at the last column.");
+    }
+
+    /**
+     * Tests that vertical and slanted walls cover the squares of their segment and make the cells around them stuck
+     * in the same way with both storages, and that emptying a square of a wall frees the squares around it.
+     */
+    @Test
+    public void testSegmentsMakeNeighboursStuck() {
+        boolean[][][] stuck = new boolean[2][][];
+        int[] storages = {AManufacturing.OBJECTS, AManufacturing.PACKED};
+        for (int k = 0; k < storages.length; k++) {
+            AManufacturing am = new AManufacturing(20, 70, storages[k]);
+            StickyWall vertical = new StickyWall(am, 2, 5, 12, 5);
+            StickyWall slanted = new StickyWall(am, 15, 60, 3, 66);
+            assertSame(vertical, am.getThing(12, 5), "The vertical wall should reach its end.");
+            assertSame(slanted, am.getThing(15, 60), "The slanted wall should start at its first end.");
+            assertSame(slanted, am.getThing(9, 63), "The slanted wall should pass through its middle.");
+            assertSame(slanted, am.getThing(3, 66), "The slanted wall should reach its end.");
+            assertEquals(3, slanted.getEndRow());
+            assertEquals(66, slanted.getEndColumn());
+
+            am.ticTac();
+            stuck[k] = new boolean[20][70];
+            for (int r = 0; r < 20; r++) {
+                for (int c = 0; c < 70; c++) {
+                    Thing thing = am.getThing(r, c);
+                    stuck[k][r][c] = (thing instanceof Cell && ((Cell) thing).getIsStuck());
+                }
+            }
+            assertTrue(stuck[k][7][4] && stuck[k][7][6] && stuck[k][13][6], "The cells beside the vertical wall should be stuck.");
+            assertFalse(stuck[k][7][3] || stuck[k][14][5], "The cells away from the vertical wall should not be stuck.");
+
+            // Cells placed where the wall ended are not next to it anymore
+            am.setThing(12, 5, null);
+            am.setThing(13, 5, null);
+            Cell freed = new Cell(am, 13, 5, true);
+            freed.decide();
+            freed.change();
+            assertFalse(freed.getIsStuck(), "A cell should not be stuck by a square of wall that was emptied.");
+            Cell held = new Cell(am, 12, 5, true);
+            held.decide();
+            held.change();
+            assertTrue(held.getIsStuck(), "A cell next to the rest of the wall should be stuck.");
+        }
+        for (int r = 0; r < 20; r++) {
+            assertArrayEquals(stuck[0][r], stuck[1][r], "Both storages should make the same cells stuck in row " + r);
+        }
+    }
+
+    /**
+     * Tests that clearing and filling a region cuts the walls crossing it as emptying its squares one by one does,
+     * keeping the pieces of wall outside the region, with both storages.
+     */
+    @Test
+    public void testClearCutsWalls() {
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing cleared = new AManufacturing(20, 130, storage);
+            AManufacturing emptied = new AManufacturing(20, 130, storage);
+            for (AManufacturing am : new AManufacturing[] {cleared, emptied}) {
+                am.setSeed(9);
+                new StickyWall(am, 10);
+                new StickyWall(am, 2, 5, 12, 5);
+                new StickyWall(am, 15, 60, 3, 72);
+                new StickyWall(am, 11, 60, 11, 80);
+            }
+            Thing row = cleared.getThing(10, 0);
+            Thing segment = cleared.getThing(11, 80);
+            for (int r = 8; r <= 11; r++) {
+                for (int c = 3; c <= 70; c++) {
+                    emptied.setThing(r, c, null);
+                }
+            }
+            for (AManufacturing am : new AManufacturing[] {cleared, emptied}) {
+                am.clear(8, 3, 11, 70);
+                am.fill(9, 3, 11, 70, 0.5);
+                am.ticTac(3);
+            }
+            assertSame(row, cleared.getThing(10, 2), "The wall should be kept before the region.");
+            assertSame(row, cleared.getThing(10, 71), "The wall should be kept after the region.");
+            assertFalse(cleared.getThing(10, 40) instanceof StickyWall, "The wall should be cut in the region.");
+            assertTrue(cleared.getThing(12, 5) instanceof StickyWall, "The vertical wall should be kept below the region.");
+            assertSame(segment, cleared.getThing(11, 71), "The piece of a wall after the region should be kept.");
+            assertSameLattice(emptied, cleared, " with storage " + storage);
+        }
+    }
+
+    /**
+     * Tests that a wall whose segment leaves the lattice is rejected.
+     */
+    @Test
+    public void testSegmentOutsideLatticeRejected() {
+        AManufacturing am = new AManufacturing(10, 10);
+        assertThrows(IllegalArgumentException.class, () -> new StickyWall(am, 0, 0, 10, 3));
+        assertThrows(IllegalArgumentException.class, () -> new StickyWall(am, -1, 2, 4, 2));
+    }
+}
@@ -0,0 +1,136 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import domain.*;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Unit tests for the metrics of the tic-tacs of AManufacturing.
+ *
+ * @author Andersson David Sánchez Méndez
+ * @author Cristian Santiago Pedraza Rodríguez
+ * @version 2024
+ */
+
+public class TicTacMetricsTest {
+
+    /**
+     * Tests that the change phase of an object lattice of original cells is timed on its own.
+     */
+    @Test
+    public void testChangePhaseTimed() {
+        AManufacturing am = new AManufacturing(200, 200);
+        am.setMetricsEnabled(true);
+        am.ticTac(5);
+        assertTrue(am.getMetrics().getChangeMeanNanos() > 10_000, "Changing 40000 cells should take its own time.");
+    }
+
+    /**
+     * Tests that a tourist cell that never leaves its square is not counted as moving, with both storages.
+     */
+    @Test
+    public void testStationaryCellDoesNotMove() {
+        for (int storage : new int[] {AManufacturing.OBJECTS, AManufacturing.PACKED}) {
+            AManufacturing am = new AManufacturing(10, 10, storage);
+            am.setThing(0, 0, null);
+            TouristCell tourist = new TouristCell(am, 0, 0, false);
+            am.setMetricsEnabled(true);
+            am.ticTac(10);
+            assertSame(tourist, am.getThing(0, 0), "The tourist cell should be hemmed in by the original cells.");
+            assertEquals(0, am.getMetrics().getMoves());
+        }
+    }
+
+    /**
+     * Tests that the metrics count the same Things, active cells, moves and stuck cells with both storages.
+     */
+    @Test
+    public void testCountsMatchLattice() {
+        TicTacMetrics[] measured = new TicTacMetrics[2];
+        int[] storages = {AManufacturing.OBJECTS, AManufacturing.PACKED};
+        for (int k = 0; k < storages.length; k++) {
+            AManufacturing am = new AManufacturing(30, 40, storages[k]);
+            assertNull(am.getMetrics(), "The metrics should not be taken by default.");
+            am.setThing(20, 30, null);
+            new TouristCell(am, 20, 30, true);
+            am.setThing(19, 29, null); // The tourist cell heads to the center through this square
+            am.setThing(5, 10, null);
+            new TouristCell(am, 5, 10, true);
+            am.setThing(6, 11, null); // This one moves ahead of the squares still to change, and must be counted once
+            am.setThing(3, 3, null);
+            new Cell(am, 3, 3, true);
+            am.setThing(8, 8, new Poison());
+            new StickyWall(am, 12);
+            am.setMetricsEnabled(true);
+            am.ticTac(5);
+
+            TicTacMetrics metrics = am.getMetrics();
+            measured[k] = metrics;
+            assertEquals(5, metrics.getTicTacs());
+            assertEquals(5L * (30 * 40 - 40 - 6), metrics.getEvaluatedOriginalCells());
+            assertEquals(10, metrics.getEvaluatedTouristCells());
+            assertEquals(5, metrics.getEvaluatedCells());
+            assertEquals(5, metrics.getEvaluatedPoisons());
+            assertEquals(5 * 40, metrics.getEvaluatedStickyWalls());
+            assertEquals(0, metrics.getEvaluatedReflectiveCells());
+            assertEquals(2 * 40, metrics.getStuckCells(), "The cells of the rows next to the wall should become stuck.");
+            assertTrue(metrics.getMoves() > 0, "The tourist cell should have moved.");
+            long active = 0;
+            for (int r = 0; r < 30; r++) {
+                for (int c = 0; c < 40; c++) {
+                    Thing thing = am.getThing(r, c);
+                    active += (thing instanceof Cell && thing.isActive() ? 1 : 0);
+                }
+            }
+            assertEquals(active, metrics.getActiveCells());
+            assertTrue(metrics.getDecideP99Nanos() <= metrics.getDecideMaxNanos());
+            assertTrue(metrics.getChangeMeanNanos() > 0);
+        }
+        assertEquals(measured[0].getMoves(), measured[1].getMoves());
+        assertEquals(measured[0].getActiveCells(), measured[1].getActiveCells());
+    }
+
+    /**
+     * Tests that a packed lattice does not leap over the tic-tacs while they are measured, and that the metrics
+     * can be reset and disabled.
+     */
+    @Test
+    public void testEveryTicTacIsMeasured() {
+        AManufacturing am = new AManufacturing(64, 64, AManufacturing.PACKED);
+        am.setMetricsEnabled(true);
+        am.ticTac(20);
+        TicTacMetrics metrics = am.getMetrics();
+        assertEquals(20, metrics.getTicTacs());
+        assertEquals(20, metrics.getDecideLatency().getCount());
+        assertEquals(20L * 64 * 64, metrics.getEvaluatedOriginalCells());
+
+        metrics.reset();
+        assertEquals(0, metrics.getTicTacs());
+        assertEquals(0, metrics.getDecideLatency().getPercentile(50));
+        am.setMetricsEnabled(false);
+        assertNull(am.getMetrics());
+    }
+
+    /**
+     * Tests that the metrics can be read through the platform MBean server.
+     */
+    @Test
+    public void testRegisteredAsMBean() throws JMException {
+        AManufacturing am = new AManufacturing(20, 20);
+        am.setMetricsEnabled(true);
+        am.getMetrics().register("metrics-test");
+        try {
+            am.ticTac(3);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("domain:type=TicTacMetrics,name=" + ObjectName.quote("metrics-test"));
+            assertEquals(3L, server.getAttribute(name, "TicTacs"));
+            assertEquals(3L * 400, server.getAttribute(name, "EvaluatedOriginalCells"));
+        } finally {
+            am.getMetrics().unregister();
+        }
+    }
+}
@@ -104,4 +104,21 @@ public class TouristCellTest {
         assertTrue(touristCell.isActive(), "The cell should become active when blocked from moving to the edge.");
         assertEquals(Color.ORANGE, touristCell.getColor(), "The cell's color should be orange when it becomes active.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the TouristCell heads towards the center of a non-square lattice.
+     * In a 10x40 lattice the center is (5,20), so from (5,0) the cell moves along the row.
+     */
+    @Test
+    public void testMoveToCenterOfNonSquareLattice() {
+        AManufacturing wide = new AManufacturing(10, 40);
+        wide.setThing(5, 1, null);
+        touristCell = new TouristCell(wide, 5, 0, true);
+
+        touristCell.decide();
+        touristCell.change();
+
+        assertEquals(5, touristCell.getRow(), "The cell should stay in the center row.");
+        assertEquals(1, touristCell.getColumn(), "The cell should move one column towards the center.");
+    }
+}